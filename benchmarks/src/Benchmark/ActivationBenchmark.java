@@ -0,0 +1,74 @@
+package Benchmark;
+
+import Activation.Activation;
+import Network.Network;
+import OrganicNN.OrganicNN;
+import TrainSet.TrainSet;
+
+import java.util.Random;
+
+/**
+ * Compares the throughput and accuracy of every activation function, both in
+ * isolation and when training a Network and an OrganicNN.
+ *
+ * usage: ActivationBenchmark [structure file]
+ *
+ * @author JAForewit
+ */
+public class ActivationBenchmark {
+    private static final int VALUES = 1 << 20;
+
+    public static void main(String[] args) {
+        String structure = args.length > 0 ? args[0] : "net.structure";
+
+        // raw function throughput
+        double[] x = new double[VALUES];
+        Random r = new Random(1);
+        for (int i = 0; i < VALUES; i++) x[i] = r.nextDouble() * 20 - 10;
+
+        System.out.println("activation      ns/apply  speedup   max |err| vs exact");
+        double base = 0;
+        for (Activation function : Activation.values()) {
+            long ns = Bench.time(() -> {
+                double sum = 0;
+                for (double v : x) sum += function.apply(v);
+                Bench.sink = sum;
+            }, 20, 15);
+            double perApply = ns / (double) VALUES;
+            if (function == Activation.SIGMOID) base = perApply;
+            System.out.printf("%-14s  %8.2f  %6.2fx   %.2e%n", function, perApply,
+                    base / perApply, maxError(function));
+        }
+
+        // effect on training
+        TrainSet data = Bench.syntheticGameData(5000, 2);
+        System.out.println();
+        System.out.println("activation      Network ms  Network MSE   OrganicNN ms  OrganicNN MSE");
+        for (Activation function : Activation.values()) {
+            Network ann = new Network(5, 8, 1);
+            ann.setActivation(function);
+            long annTime = System.nanoTime();
+            ann.train(data, 2000, 50, 0.3);
+            annTime = System.nanoTime() - annTime;
+
+            OrganicNN onn = new OrganicNN(structure);
+            onn.setActivation(function);
+            long onnTime = System.nanoTime();
+            onn.train(data, 2000, 50, 0.3);
+            onnTime = System.nanoTime() - onnTime;
+
+            System.out.printf("%-14s  %10d  %11.5f   %12d  %13.5f%n", function,
+                    annTime / 1000000, Bench.averageMSE(data, ann::MSE),
+                    onnTime / 1000000, Bench.averageMSE(data, onn::MSE));
+        }
+    }
+
+    // largest difference from the exact function the activation approximates
+    private static double maxError(Activation function) {
+        if (function != Activation.FAST_SIGMOID) return 0;
+        double max = 0;
+        for (double v = -20; v <= 20; v += 1e-4)
+            max = Math.max(max, Math.abs(function.apply(v) - Activation.SIGMOID.apply(v)));
+        return max;
+    }
+}
@@ -0,0 +1,56 @@
+package Benchmark;
+
+import FlappyBird.Population;
+import FlappyBird.Simulation;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes allocated per tick by the headless game once it has
+ * warmed up, using the per-thread allocation counter of the HotSpot
+ * ThreadMXBean. Steady-state ticks (including pipe spawning, next-pipe lookups
+ * and restarts) should allocate nothing.
+ *
+ * usage: AllocationBenchmark [ticks]
+ *
+ * @author JAForewit
+ */
+public class AllocationBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        Simulation sim = new Simulation(1);
+        Population population = new Population(1000, 1);
+        double[] inputs = new double[population.size() * Population.INPUT_SIZE];
+        double[] outputs = new double[population.size()];
+
+        Runnable simTick = () -> {
+            if (sim.getTime() % 23 == 0) sim.jump();
+            if (!sim.step()) sim.reset();
+            Bench.sink += sim.getNextPipe();
+        };
+        Runnable populationTick = () -> {
+            population.gatherInputs(inputs);
+            for (int i = 0; i < outputs.length; i++) outputs[i] = ((i + population.getTime()) % 23 == 0) ? 1 : 0;
+            population.jump(outputs, 0.5);
+            if (population.step() == 0) population.reset();
+        };
+
+        for (int run = 0; run < 3; run++) {
+            System.out.printf("Simulation: %.3f bytes/tick, Population (1000 birds): %.3f bytes/tick%n",
+                    bytesPerTick(simTick, ticks), bytesPerTick(populationTick, ticks / 100));
+        }
+    }
+
+    // warms up with the given number of ticks, then returns the bytes allocated per tick
+    private static double bytesPerTick(Runnable tick, int ticks) {
+        for (int i = 0; i < ticks; i++) tick.run();
+        long thread = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ticks; i++) tick.run();
+        return (double) (THREADS.getThreadAllocatedBytes(thread) - before) / ticks;
+    }
+}
@@ -0,0 +1,72 @@
+package Benchmark;
+
+import TrainSet.TrainSet;
+
+/**
+ * Reports convergence against wall clock time for the single threaded train()
+ * methods and the asynchronous (Hogwild) trainers of both network types.
+ * Training runs in rounds; after each round the elapsed training time and the
+ * average MSE over the data set are printed.
+ *
+ * The network classes are referenced by their full names because both packages
+ * contain an AsyncTrainer.
+ *
+ * usage: AsyncTrainingBenchmark [structure file] [rounds] [loops per round]
+ *
+ * @author JAForewit
+ */
+public class AsyncTrainingBenchmark {
+    private static final int[] THREADS = {2, 4, 8};
+    private static final int BATCH_SIZE = 50;
+    private static final double RATE = 0.3;
+
+    interface Trainer { void train(TrainSet set, int loops); }
+
+    public static void main(String[] args) {
+        String structure = args.length > 0 ? args[0] : "net.structure";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int loops = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        TrainSet data = Bench.syntheticGameData(5000, 4);
+
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors()
+                + ", rounds: " + rounds + " x " + loops + " batches of " + BATCH_SIZE);
+
+        System.out.println("\nNetwork 5 4 1");
+        Network.Network ann = new Network.Network(5, 4, 1);
+        run("train()", data, rounds, loops, (set, n) -> ann.copy().train(set, n, BATCH_SIZE, RATE), null);
+        Network.Network single = ann.copy();
+        run("train()", data, rounds, loops, (set, n) -> single.train(set, n, BATCH_SIZE, RATE), single::MSE);
+        for (int threads : THREADS) {
+            Network.Network net = ann.copy();
+            Network.AsyncTrainer async = new Network.AsyncTrainer(net, threads, 7);
+            run("async x" + threads, data, rounds, loops, (set, n) -> async.train(set, n, BATCH_SIZE, RATE), net::MSE);
+        }
+
+        System.out.println("\nOrganicNN " + structure);
+        OrganicNN.OrganicNN onn = new OrganicNN.OrganicNN(structure);
+        run("train()", data, rounds, loops, (set, n) -> onn.train(set, n, BATCH_SIZE, RATE), onn::MSE);
+        for (int threads : THREADS) {
+            OrganicNN.OrganicNN net = new OrganicNN.OrganicNN(structure);
+            OrganicNN.AsyncTrainer async = new OrganicNN.AsyncTrainer(net, threads, 7);
+            run("async x" + threads, data, rounds, loops, (set, n) -> async.train(set, n, BATCH_SIZE, RATE), net::MSE);
+        }
+    }
+
+    // prints "label: ms/MSE ms/MSE ..." after every round, or only warms up when mse is null
+    private static void run(String label, TrainSet data, int rounds, int loops, Trainer trainer,
+                            Bench.SampleError mse) {
+        if (mse == null) {
+            trainer.train(data, loops);
+            return;
+        }
+        StringBuilder line = new StringBuilder(String.format("%-9s", label));
+        long elapsed = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            trainer.train(data, loops);
+            elapsed += System.nanoTime() - start;
+            line.append(String.format("  %5d/%.4f", elapsed / 1000000, Bench.averageMSE(data, mse)));
+        }
+        System.out.println(line);
+    }
+}
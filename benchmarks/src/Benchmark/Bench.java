@@ -0,0 +1,79 @@
+package Benchmark;
+
+import TrainSet.TrainSet;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Small timing helpers shared by the benchmarks. Each benchmark is a plain
+ * main() program; results are printed as tables to standard out.
+ *
+ * @author JAForewit
+ */
+final class Bench {
+    // results are written here so the JIT can not remove the measured work
+    static volatile double sink;
+
+    private Bench() {}
+
+    /**
+     * Runs a task a number of times to warm up the JIT, then times it.
+     *
+     * @param task the work to measure
+     * @param warmup number of untimed runs
+     * @param runs number of timed runs
+     * @return median time of a single run in nanoseconds
+     */
+    static long time(Runnable task, int warmup, int runs) {
+        for (int i = 0; i < warmup; i++) task.run();
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            task.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[runs / 2];
+    }
+
+    /**
+     * Creates a data set shaped like the data captured by GamePanel: bird height,
+     * bird velocity, pipe gap, gap center and distance to the next pipe (all in the
+     * same units as GamePanel.captureData), with a target of 1 when the bird should
+     * jump. Used when no captured data is available.
+     *
+     * @param samples number of samples
+     * @param seed random seed
+     * @return the data set
+     */
+    static TrainSet syntheticGameData(int samples, long seed) {
+        Random r = new Random(seed);
+        TrainSet set = new TrainSet(5, 1);
+        for (int i = 0; i < samples; i++) {
+            double gap = 1.5 + r.nextDouble() * 0.7;
+            double gapY = 1.6 + r.nextDouble() * 1.6;
+            double y = gapY - gap / 2 + r.nextDouble() * gap;
+            double vy = -4 + r.nextDouble() * 8;
+            double distance = r.nextDouble() * 2.7;
+            double target = (y + 0.4 + vy * 0.1 > gapY + gap / 4) ? 1 : 0;
+            set.addData(new double[]{y, vy, gap, gapY, distance}, new double[]{target});
+        }
+        return set;
+    }
+
+    /**
+     * Calculates the mean squared error of a function over a whole data set.
+     *
+     * @param set the data set
+     * @param mse the per sample MSE function of a network
+     * @return the average MSE
+     */
+    static double averageMSE(TrainSet set, SampleError mse) {
+        double sum = 0;
+        for (int i = 0; i < set.size(); i++) sum += mse.of(set.getInput(i), set.getTarget(i));
+        return sum / set.size();
+    }
+
+    interface SampleError { double of(double[] input, double[] target); }
+}
@@ -0,0 +1,31 @@
+package Benchmark;
+
+import Evolution.NeuroEvolution;
+
+/**
+ * Times neuroevolution generations with an increasing number of evaluation
+ * threads. The run is deterministic, so every thread count must reach the same
+ * best fitness; only the evaluation time should change.
+ *
+ * usage: EvolutionBenchmark [population] [generations]
+ *
+ * @author JAForewit
+ */
+public class EvolutionBenchmark {
+    public static void main(String[] args) {
+        int population = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int generations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            NeuroEvolution evolution = new NeuroEvolution(population, 3, 1, threads, 5, 4, 1);
+            evolution.setMaxTicks(5000);
+            long time = System.nanoTime();
+            evolution.evolve(generations);
+            time = System.nanoTime() - time;
+            evolution.shutdown();
+            System.out.printf("%d threads: %,.1f ms/generation, best distance %.0f%n",
+                    threads, time / 1e6 / generations, evolution.getBestFitness());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package Benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH hot path benchmarks (NetworkHotPaths, OrganicNNHotPaths and
+ * TrainSetHotPaths) with the GC profiler, so every result also reports the
+ * bytes allocated per operation (gc.alloc.rate.norm). Run from the project
+ * root so the shipped net.structure file is found.
+ *
+ * usage: HotPathBenchmarks [benchmark regex]
+ *
+ * @author JAForewit
+ */
+public class HotPathBenchmarks {
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ".*HotPaths.*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
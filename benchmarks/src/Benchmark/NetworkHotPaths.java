@@ -0,0 +1,53 @@
+package Benchmark;
+
+import Network.Network;
+import TrainSet.TrainSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the Network hot paths.
+ *
+ * @author JAForewit
+ * @see HotPathBenchmarks
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkHotPaths {
+    @Param({Topologies.SHIPPED, "layered-64", "layered-256"})
+    public String topology;
+
+    private Network network;
+    private TrainSet data;
+    private double[] input;
+
+    @State(Scope.Thread)
+    public static class Batch {
+        @Param({"1", "50", "256"})
+        public int batchSize;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        network = new Network(Topologies.layers(topology));
+        data = Bench.syntheticGameData(10000, 1);
+        input = data.getInput(0);
+    }
+
+    @Benchmark
+    public double[] calculateOutput() {
+        return network.calculateOutput(input);
+    }
+
+    @Benchmark
+    public Network train(Batch batch) {
+        network.train(data, 1, batch.batchSize, 0.3);
+        return network;
+    }
+}
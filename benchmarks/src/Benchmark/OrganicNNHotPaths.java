@@ -0,0 +1,68 @@
+package Benchmark;
+
+import OrganicNN.OrganicNN;
+import TrainSet.TrainSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the OrganicNN hot paths, on the same topologies as
+ * NetworkHotPaths.
+ *
+ * @author JAForewit
+ * @see HotPathBenchmarks
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrganicNNHotPaths {
+    @Param({Topologies.SHIPPED, "layered-64", "layered-256"})
+    public String topology;
+
+    private OrganicNN network;
+    private TrainSet data;
+    private double[] input;
+    private double[] target;
+    private double[] output;
+
+    @State(Scope.Thread)
+    public static class Batch {
+        @Param({"1", "50", "256"})
+        public int batchSize;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        network = new OrganicNN(Topologies.structureFile(topology));
+        data = Bench.syntheticGameData(10000, 1);
+        input = data.getInput(0);
+        target = data.getTarget(0);
+        output = new double[network.getOutputCount()];
+    }
+
+    @Benchmark
+    public double[] calculateOutput() {
+        return network.calculateOutput(input);
+    }
+
+    @Benchmark
+    public double[] calculateOutputInto() {
+        return network.calculateOutput(input, output);
+    }
+
+    @Benchmark
+    public double MSE() {
+        return network.MSE(input, target);
+    }
+
+    @Benchmark
+    public OrganicNN train(Batch batch) {
+        network.train(data, 1, batch.batchSize, 0.3);
+        return network;
+    }
+}
@@ -0,0 +1,52 @@
+package Benchmark;
+
+import Network.Network;
+import Network.ParallelTrainer;
+import TrainSet.TrainSet;
+
+import java.util.Arrays;
+
+/**
+ * Measures how ParallelTrainer scales with the number of threads, and checks
+ * that two runs with the same seed and thread count produce the same network.
+ *
+ * usage: ParallelTrainingBenchmark [hidden layer size] [batch size] [loops]
+ *
+ * @author JAForewit
+ */
+public class ParallelTrainingBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) {
+        int hidden = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int loops = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        TrainSet data = Bench.syntheticGameData(20000, 3);
+        Network initial = new Network(5, hidden, hidden, 1);
+        double[] probe = data.getInput(0);
+
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors()
+                + ", network: 5 " + hidden + " " + hidden + " 1, batch: " + batchSize + ", loops: " + loops);
+        System.out.println("threads    ms  speedup  efficiency  deterministic");
+        double base = 0;
+        for (int threads : THREADS) {
+            double[][] outputs = new double[2][];
+            long time = 0;
+            for (int run = 0; run < 2; run++) {
+                Network net = initial.copy();
+                ParallelTrainer trainer = new ParallelTrainer(net, threads, 42);
+                trainer.train(data, loops / 10, batchSize, 0.3); // warm up
+                long start = System.nanoTime();
+                trainer.train(data, loops, batchSize, 0.3);
+                time = System.nanoTime() - start;
+                trainer.shutdown();
+                outputs[run] = net.calculateOutput(probe).clone();
+            }
+            double ms = time / 1e6;
+            if (threads == 1) base = ms;
+            System.out.printf("%7d  %5.0f  %6.2fx  %9.0f%%  %s%n", threads, ms, base / ms,
+                    100 * base / ms / threads, Arrays.equals(outputs[0], outputs[1]));
+        }
+    }
+}
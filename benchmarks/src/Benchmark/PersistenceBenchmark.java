@@ -0,0 +1,85 @@
+package Benchmark;
+
+import Activation.Activation;
+import Network.Network;
+import OrganicNN.OrganicNN;
+import TrainSet.TrainSet;
+
+import java.io.File;
+
+/**
+ * Round-trips trained networks of both engines through their model files,
+ * checks that the loaded networks give bit-identical outputs, and measures the
+ * time from load to first inference against the training run it replaces.
+ * Every output of every sample is compared; the benchmark exits with status 1
+ * if any of them differs.
+ *
+ * usage: PersistenceBenchmark [topology]
+ *
+ * @author JAForewit
+ */
+public class PersistenceBenchmark {
+    public static void main(String[] args) throws Exception {
+        String topology = args.length > 0 ? args[0] : "layered-64";
+        TrainSet data = Bench.syntheticGameData(5000, 1);
+        File file = File.createTempFile("model", ".bin");
+        file.deleteOnExit();
+        String path = file.getPath();
+
+        Network network = new Network(Topologies.layers(topology));
+        network.setActivation(1, Activation.TANH);
+        long train = System.nanoTime();
+        network.train(data, 2000, 50, 0.3);
+        train = System.nanoTime() - train;
+        network.save(path);
+        long load = System.nanoTime();
+        Network loaded = Network.load(path);
+        loaded.calculateOutput(data.getInput(0));
+        load = System.nanoTime() - load;
+        int failed = report("Network", topology, file.length(), train, load,
+                mismatches(data, i -> network.calculateOutput(data.getInput(i)),
+                        i -> loaded.calculateOutput(data.getInput(i))));
+
+        OrganicNN organic = new OrganicNN(Topologies.structureFile(topology));
+        train = System.nanoTime();
+        organic.train(data, 2000, 50, 0.3);
+        train = System.nanoTime() - train;
+        organic.save(path);
+        load = System.nanoTime();
+        OrganicNN organicLoaded = OrganicNN.load(path);
+        organicLoaded.calculateOutput(data.getInput(0));
+        load = System.nanoTime() - load;
+        failed += report("OrganicNN", topology, file.length(), train, load,
+                mismatches(data, i -> organic.calculateOutput(data.getInput(i)),
+                        i -> organicLoaded.calculateOutput(data.getInput(i))));
+
+        if (failed > 0) {
+            System.err.println(failed + " outputs changed after loading.");
+            System.exit(1);
+        }
+    }
+
+    private interface Output { double[] of(int sample); }
+
+    // outputs that differ in any bit, over every output of every sample
+    private static int mismatches(TrainSet data, Output expected, Output actual) {
+        int count = 0;
+        for (int i = 0; i < data.size(); i++) {
+            double[] a = expected.of(i).clone(), b = actual.of(i);
+            if (a.length != b.length) {
+                count += Math.max(a.length, b.length);
+                continue;
+            }
+            for (int j = 0; j < a.length; j++)
+                if (Double.doubleToRawLongBits(a[j]) != Double.doubleToRawLongBits(b[j])) count++;
+        }
+        return count;
+    }
+
+    // prints one result line and returns the mismatch count
+    private static int report(String engine, String topology, long bytes, long train, long load, int mismatches) {
+        System.out.printf("%s %s: %,d byte model, training %,.1f ms, load + first inference %.3f ms, "
+                + "%d mismatched outputs%n", engine, topology, bytes, train / 1e6, load / 1e6, mismatches);
+        return mismatches;
+    }
+}
@@ -0,0 +1,52 @@
+package Benchmark;
+
+import FlappyBird.Population;
+import Network.InferenceContext;
+import Network.Network;
+
+/**
+ * Measures Population ticks per second on one core: once with the physics
+ * only (birds jump from a fixed pattern), and once with the full control loop
+ * of gathering every bird's inputs and evaluating them as one Network batch.
+ * Games are restarted whenever every bird has died.
+ *
+ * usage: PopulationBenchmark [birds] [ticks]
+ *
+ * @author JAForewit
+ */
+public class PopulationBenchmark {
+    public static void main(String[] args) {
+        int birds = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        Population population = new Population(birds, 1);
+        double[] inputs = new double[birds * Population.INPUT_SIZE];
+        double[] outputs = new double[birds];
+        Network network = new Network(5, 4, 1);
+        InferenceContext context = new InferenceContext(network);
+
+        for (int run = 0; run < 3; run++) {
+            long physics = time(population, ticks, () -> {
+                for (int i = 0; i < birds; i++) outputs[i] = ((i + population.getTime()) % 23 == 0) ? 1 : 0;
+                population.jump(outputs, 0.5);
+            });
+            long inference = time(population, ticks, () -> {
+                population.gatherInputs(inputs);
+                network.calculateOutputs(context, inputs, birds, outputs);
+                population.jump(outputs, 0.5);
+            });
+            System.out.printf("%d birds: physics %,.0f ticks/s, inputs + batch inference + physics %,.0f ticks/s%n",
+                    birds, ticks / (physics / 1e9), ticks / (inference / 1e9));
+        }
+    }
+
+    private static long time(Population population, int ticks, Runnable control) {
+        population.reset();
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            control.run();
+            if (population.step() == 0) population.reset();
+        }
+        return System.nanoTime() - start;
+    }
+}
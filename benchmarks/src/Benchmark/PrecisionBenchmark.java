@@ -0,0 +1,66 @@
+package Benchmark;
+
+import Network.FloatNetwork;
+import Network.Network;
+import TrainSet.Precision;
+import TrainSet.TrainSet;
+import TrainSet.TrainSetFile;
+
+/**
+ * Compares Network (double) against FloatNetwork (float), each trained on a
+ * TrainSet of the matching precision: training throughput, single input
+ * inference latency and the final MSE.
+ *
+ * usage: PrecisionBenchmark [captured data file, e.g. gameplay.tset]
+ *
+ * @author JAForewit
+ */
+public class PrecisionBenchmark {
+    private static final int[][] TOPOLOGIES = {{5, 4, 1}, {5, 64, 64, 1}};
+    private static final int LOOPS = 2000;
+    private static final int BATCH_SIZE = 50;
+    private static final double RATE = 0.3;
+
+    public static void main(String[] args) throws Exception {
+        TrainSet source = args.length > 0 ? TrainSetFile.open(args[0]) : Bench.syntheticGameData(20000, 5);
+        System.out.println("data: " + (args.length > 0 ? args[0] : "synthetic") + ", " + source.size() + " samples");
+
+        TrainSet doubles = copy(source, Precision.DOUBLE);
+        TrainSet floats = copy(source, Precision.FLOAT);
+        double[] probe = source.getInput(0);
+
+        System.out.println("network         precision  train samples/ms  infer ns  final MSE");
+        for (int[] layers : TOPOLOGIES) {
+            String name = java.util.Arrays.toString(layers);
+
+            Network ann = new Network(layers);
+            ann.train(doubles, LOOPS / 10, BATCH_SIZE, RATE);
+            long train = Bench.time(() -> ann.train(doubles, LOOPS, BATCH_SIZE, RATE), 1, 3);
+            long infer = Bench.time(() -> { for (int i = 0; i < 10000; i++) Bench.sink = ann.calculateOutput(probe)[0]; }, 5, 9);
+            print(name, "double", train, infer, Bench.averageMSE(doubles, ann::MSE));
+
+            FloatNetwork fnn = new FloatNetwork(layers);
+            fnn.train(floats, LOOPS / 10, BATCH_SIZE, RATE);
+            train = Bench.time(() -> fnn.train(floats, LOOPS, BATCH_SIZE, RATE), 1, 3);
+            infer = Bench.time(() -> { for (int i = 0; i < 10000; i++) Bench.sink = fnn.calculateOutput(probe)[0]; }, 5, 9);
+            print(name, "float", train, infer, Bench.averageMSE(doubles, fnn::MSE));
+        }
+    }
+
+    private static void print(String network, String precision, long trainNs, long inferNs, double mse) {
+        System.out.printf("%-15s %-9s  %16.1f  %8.1f  %9.5f%n", network, precision,
+                LOOPS * BATCH_SIZE / (trainNs / 1e6), inferNs / 10000d, mse);
+    }
+
+    private static TrainSet copy(TrainSet source, Precision precision) {
+        TrainSet set = new TrainSet(source.getINPUT_SIZE(), source.getTARGET_SIZE(), precision);
+        double[] input = new double[source.getINPUT_SIZE()];
+        double[] target = new double[source.getTARGET_SIZE()];
+        for (int i = 0; i < source.size(); i++) {
+            source.getInput(i, input, 0);
+            source.getTarget(i, target, 0);
+            set.addData(input, target);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,55 @@
+package Benchmark;
+
+import OrganicNN.OrganicNN;
+import OrganicNN.Pruner;
+import OrganicNN.Topology;
+import TrainSet.TrainSet;
+import TrainSet.TrainSetFile;
+
+/**
+ * Trains a wide OrganicNN on gameplay data, prunes it to increasing sparsity
+ * and fine-tunes each pruned network, reporting its size, inference speedup and
+ * MSE before and after fine-tuning.
+ *
+ * usage: PruningBenchmark [captured data file, e.g. gameplay.tset]
+ *
+ * @author JAForewit
+ */
+public class PruningBenchmark {
+    private static final double[] SPARSITY = {0, 0.5, 0.75, 0.9, 0.95, 0.98, 0.99};
+
+    public static void main(String[] args) throws Exception {
+        TrainSet data = args.length > 0 ? TrainSetFile.open(args[0]) : Bench.syntheticGameData(20000, 5);
+        OrganicNN network = new OrganicNN(Topology.layered(5, 64, 64, 1));
+        network.train(data, 4000, 50, 0.3);
+        double baseTime = inferenceTime(network, data);
+
+        Pruner pruner = new Pruner(network);
+        pruner.record(data);
+        System.out.printf("%,d samples, %d dead neurons%n", pruner.getSampleCount(), pruner.getDeadNeuronCount());
+        System.out.println("sparsity  neurons    axons   ns/sample  speedup   MSE pruned   MSE tuned");
+        for (double sparsity : SPARSITY) {
+            OrganicNN pruned = pruner.prune(sparsity);
+            double prunedMSE = Bench.averageMSE(data, pruned::MSE);
+            pruned.train(data, 1000, 50, 0.05);
+            double tunedMSE = Bench.averageMSE(data, pruned::MSE);
+            double time = inferenceTime(pruned, data);
+            System.out.printf("%8.2f %8d %8d %11.1f %7.1fx %12.5f %11.5f%n", sparsity, pruned.getNeuronCount(),
+                    pruned.getAxonCount(), time, baseTime / time, prunedMSE, tunedMSE);
+        }
+        System.out.printf("unpruned MSE %.5f%n", Bench.averageMSE(data, network::MSE));
+    }
+
+    // median time of one inference in nanoseconds
+    private static double inferenceTime(OrganicNN network, TrainSet data) {
+        double[] outputs = new double[1];
+        int samples = Math.min(data.size(), 2000);
+        double[][] inputs = new double[samples][];
+        for (int i = 0; i < samples; i++) inputs[i] = data.getInput(i);
+        return Bench.time(() -> {
+            double sum = 0;
+            for (double[] input : inputs) sum += network.calculateOutput(input, outputs)[0];
+            Bench.sink = sum;
+        }, 20, 21) / (double) samples;
+    }
+}
@@ -0,0 +1,39 @@
+package Benchmark;
+
+import FlappyBird.Simulation;
+
+/**
+ * Measures how fast the headless Simulation runs compared to the game's real
+ * time rate of 60 ticks per second. The bird is flown by a simple rule (jump
+ * when falling below the next gap's center) so games last a realistic time.
+ *
+ * usage: SimulationBenchmark [ticks]
+ *
+ * @author JAForewit
+ */
+public class SimulationBenchmark {
+    private static final int REAL_TIME_TPS = 60;
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+
+        for (int run = 0; run < 5; run++) {
+            Simulation sim = new Simulation(run);
+            int games = 1, best = 0;
+            long start = System.nanoTime();
+            for (int t = 0; t < ticks; t++) {
+                int next = sim.getNextPipe();
+                int target = next >= 0 ? sim.getPipeCenter(next) : Simulation.HEIGHT / 2;
+                if (sim.getBirdY() + Simulation.BIRD_H / 2 > target + 20 && sim.getBirdVy() > 0) sim.jump();
+                if (!sim.step()) {
+                    best = Math.max(best, sim.getScore());
+                    sim.reset();
+                    games++;
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("run %d: %,.0f ticks/s (%,.0fx real time), %d games, best score %d%n",
+                    run, ticks / seconds, ticks / seconds / REAL_TIME_TPS, games, Math.max(best, sim.getScore()));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package Benchmark;
+
+import OrganicNN.OrganicNN;
+import OrganicNN.Topology;
+
+import java.io.File;
+
+/**
+ * Measures loading large OrganicNN structures: generates a topology, writes it in
+ * the text and binary structure formats, and times parsing each file, building
+ * the network from it, and one inference.
+ *
+ * usage: StructureBenchmark [random|small-world|layered] [axons]
+ *
+ * @author JAForewit
+ */
+public class StructureBenchmark {
+    private static final int INPUTS = 5, OUTPUTS = 1, FAN_OUT = 16;
+
+    public static void main(String[] args) throws Exception {
+        String kind = args.length > 0 ? args[0] : "random";
+        int axons = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int hidden = axons / FAN_OUT;
+
+        long generate = System.nanoTime();
+        Topology topology;
+        switch (kind) {
+            case "small-world": topology = Topology.smallWorld(INPUTS, hidden, OUTPUTS, FAN_OUT, 0.1, 1); break;
+            case "layered":
+                int width = (int) Math.sqrt(axons / 2.0);
+                topology = Topology.layered(INPUTS, width, width, OUTPUTS);
+                break;
+            default: topology = Topology.randomSparse(INPUTS, hidden, OUTPUTS, FAN_OUT, 1);
+        }
+        generate = System.nanoTime() - generate;
+        System.out.printf("%s: %,d neurons, %,d axons, generated in %.1f ms%n", kind,
+                topology.getNeuronCount(), topology.getAxonCount(), generate / 1e6);
+
+        File text = File.createTempFile("structure", ".txt");
+        File binary = File.createTempFile("structure", ".bin");
+        text.deleteOnExit();
+        binary.deleteOnExit();
+        topology.writeText(text.getPath());
+        topology.writeBinary(binary.getPath());
+
+        double[] inputs = new double[INPUTS];
+        for (int run = 0; run < 5; run++) {
+            report("text  ", text, inputs);
+            report("binary", binary, inputs);
+        }
+    }
+
+    private static void report(String format, File file, double[] inputs) throws Exception {
+        long start = System.nanoTime();
+        Topology topology = Topology.read(file.getPath());
+        long parsed = System.nanoTime();
+        OrganicNN network = new OrganicNN(topology);
+        long built = System.nanoTime();
+        network.calculateOutput(inputs);
+        long done = System.nanoTime();
+        System.out.printf("%s %,12d bytes: parse %7.1f ms, build %7.1f ms, inference %6.2f ms, total %7.1f ms%n",
+                format, file.length(), (parsed - start) / 1e6, (built - parsed) / 1e6, (done - built) / 1e6,
+                (done - start) / 1e6);
+    }
+}
@@ -0,0 +1,57 @@
+package Benchmark;
+
+import OrganicNN.Topology;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Network topologies used by the JMH benchmarks, so both network engines can be
+ * compared on equal footing. A topology is either the shipped structure file or
+ * a generated, fully connected layered network named "layered-N" (5 inputs, two
+ * hidden layers of N neurons, 1 output).
+ *
+ * @author JAForewit
+ */
+final class Topologies {
+    static final String SHIPPED = "net.structure";
+
+    private Topologies() {}
+
+    /**
+     * Returns the layer sizes of a topology for Network. The shipped structure file
+     * is read as a single hidden layer network.
+     *
+     * @param name topology name
+     * @return layer sizes
+     * @throws IOException if the structure file can not be read
+     */
+    static int[] layers(String name) throws IOException {
+        if (name.startsWith("layered-")) {
+            int width = Integer.parseInt(name.substring("layered-".length()));
+            return new int[]{5, width, width, 1};
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(name))) {
+            String[] header = reader.readLine().trim().split("\\s+");
+            return new int[]{Integer.parseInt(header[0]), Integer.parseInt(header[1]), Integer.parseInt(header[2])};
+        }
+    }
+
+    /**
+     * Returns a structure file for OrganicNN describing a topology, generating it
+     * in the temporary directory if needed.
+     *
+     * @param name topology name
+     * @return path of the structure file
+     * @throws IOException if the file can not be written
+     */
+    static String structureFile(String name) throws IOException {
+        if (!name.startsWith("layered-")) return name;
+        File file = File.createTempFile(name, ".structure");
+        file.deleteOnExit();
+        Topology.layered(layers(name)).writeText(file.getPath());
+        return file.getPath();
+    }
+}
@@ -0,0 +1,36 @@
+package Benchmark;
+
+import TrainSet.Batch;
+import TrainSet.TrainSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of TrainSet batch extraction.
+ *
+ * @author JAForewit
+ * @see HotPathBenchmarks
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrainSetHotPaths {
+    @Param({"1", "50", "256"})
+    public int batchSize;
+
+    private TrainSet data;
+
+    @Setup
+    public void setup() {
+        data = Bench.syntheticGameData(10000, 1);
+    }
+
+    @Benchmark
+    public Batch extractBatch() {
+        return data.extractBatch(batchSize);
+    }
+}
@@ -0,0 +1,58 @@
+package Benchmark;
+
+import OrganicNN.OrganicNN;
+import OrganicNN.Topology;
+import TrainSet.TrainSet;
+
+/**
+ * Finds where wavefront-parallel evaluation of an OrganicNN starts to pay off.
+ * For layered networks of growing width (so each dependency level holds width^2
+ * axons) it times feed forward and a training step sequentially and with every
+ * level forced onto the pool, and checks both give identical outputs. The first
+ * width where the parallel pass wins is the crossover; OrganicNN.PARALLEL_THRESHOLD
+ * should sit near its level size.
+ *
+ * usage: WavefrontBenchmark [threads]
+ *
+ * @author JAForewit
+ */
+public class WavefrontBenchmark {
+    private static final int[] WIDTHS = {4, 16, 32, 64, 128, 256, 512, 1024};
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        TrainSet data = Bench.syntheticGameData(2000, 9);
+        double[] input = data.getInput(0);
+        double[] outputs = new double[1];
+
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors() + ", threads: " + threads
+                + ", default threshold: " + OrganicNN.PARALLEL_THRESHOLD + " axons per level");
+        System.out.println("  width  level axons  forward seq us  par us  speedup   train seq us  par us  speedup"
+                + "  identical");
+        for (int width : WIDTHS) {
+            OrganicNN network = new OrganicNN(Topology.layered(5, width, width, width, 1));
+            long forwardSeq = Bench.time(() -> Bench.sink = network.calculateOutput(input, outputs)[0], 200, 201);
+            long trainSeq = Bench.time(() -> network.train(data, 1, 8, 0.01), 50, 51);
+            double sequential = network.calculateOutput(input)[0];
+
+            network.setParallelism(threads, 1);
+            double parallel = network.calculateOutput(input)[0];
+            long forwardPar = Bench.time(() -> Bench.sink = network.calculateOutput(input, outputs)[0], 200, 201);
+            long trainPar = Bench.time(() -> network.train(data, 1, 8, 0.01), 50, 51);
+            network.setParallelism(1);
+
+            System.out.printf("%7d %12d %15.1f %7.1f %7.2fx %14.1f %7.1f %7.2fx  %s%n", width, width * width,
+                    forwardSeq / 1e3, forwardPar / 1e3, (double) forwardSeq / forwardPar,
+                    trainSeq / 1e3, trainPar / 1e3, (double) trainSeq / trainPar,
+                    Double.doubleToRawLongBits(sequential) == Double.doubleToRawLongBits(parallel));
+        }
+
+        // the shipped network never reaches the default threshold and stays sequential
+        OrganicNN shipped = new OrganicNN(Topologies.SHIPPED);
+        long before = Bench.time(() -> Bench.sink = shipped.calculateOutput(input, outputs)[0], 10000, 10001);
+        shipped.setParallelism(threads);
+        long after = Bench.time(() -> Bench.sink = shipped.calculateOutput(input, outputs)[0], 10000, 10001);
+        System.out.printf("%s with default threshold: %d ns sequential, %d ns with parallelism set%n",
+                Topologies.SHIPPED, before, after);
+    }
+}
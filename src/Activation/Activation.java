@@ -0,0 +1,120 @@
+package Activation;
+
+/**
+ * Neuron activation functions shared by the Network and OrganicNN classes.
+ * Every activation provides its derivative expressed in terms of the
+ * activation's output, which is the value both networks keep around for
+ * backpropagation.
+ *
+ * FAST_SIGMOID trades exactness for throughput: it interpolates a precomputed
+ * sigmoid table instead of calling Math.exp, with an absolute error below
+ * {@link #FAST_SIGMOID_MAX_ERROR}.
+ *
+ * Every activation has a fixed code (see getCode) that model files store
+ * instead of its position in this enum, so activations can be added or
+ * reordered without breaking saved networks.
+ *
+ * @author JAForewit
+ * @version 1.0, 02/08/2018
+ */
+public enum Activation {
+
+    /** Logistic function, maps every value to between 0 and 1. */
+    SIGMOID(0) {
+        public double apply(double x) { return 1d / (1 + Math.exp(-x)); }
+        public double derivative(double y) { return y * (1 - y); }
+    },
+
+    /** Hyperbolic tangent, maps every value to between -1 and 1. */
+    TANH(1) {
+        public double apply(double x) { return Math.tanh(x); }
+        public double derivative(double y) { return 1 - y * y; }
+    },
+
+    /** Rectified linear unit. */
+    RELU(2) {
+        public double apply(double x) { return x > 0 ? x : 0; }
+        public double derivative(double y) { return y > 0 ? 1 : 0; }
+    },
+
+    /** Rectified linear unit with a small slope for negative values. */
+    LEAKY_RELU(3) {
+        public double apply(double x) { return x > 0 ? x : LEAKY_SLOPE * x; }
+        public double derivative(double y) { return y > 0 ? 1 : LEAKY_SLOPE; }
+    },
+
+    /** Table driven sigmoid using linear interpolation. */
+    FAST_SIGMOID(4) {
+        public double apply(double x) {
+            if (x <= -TABLE_RANGE) return 0;
+            if (x >= TABLE_RANGE) return 1;
+            double pos = (x + TABLE_RANGE) * TABLE_SCALE;
+            int i = (int) pos;
+            double frac = pos - i;
+            return SigmoidTable.VALUES[i] + frac * (SigmoidTable.VALUES[i + 1] - SigmoidTable.VALUES[i]);
+        }
+        public double derivative(double y) { return y * (1 - y); }
+    };
+
+    /** Slope of LEAKY_RELU for negative values. */
+    public static final double LEAKY_SLOPE = 0.01;
+
+    /** Upper bound on |FAST_SIGMOID(x) - SIGMOID(x)| for any x. */
+    public static final double FAST_SIGMOID_MAX_ERROR = 5e-6;
+
+    private static final double TABLE_RANGE = 16;   // sigmoid(16) is within 1.2e-7 of 1
+    private static final double TABLE_SCALE = 64;   // table entries per unit
+
+    private final int code;
+
+    Activation(int code) { this.code = code; }
+
+    /**
+     * Returns the code model files store for this activation. Codes never
+     * change once assigned.
+     *
+     * @return the stable code
+     */
+    public int getCode() { return code; }
+
+    /**
+     * Finds the activation with the given code.
+     *
+     * @param code a value returned by getCode()
+     * @return the activation, or null if no activation has that code
+     */
+    public static Activation fromCode(int code) {
+        for (Activation function : values()) if (function.code == code) return function;
+        return null;
+    }
+
+    /**
+     * Calculates the output of a neuron from its weighted input sum.
+     *
+     * @param x weighted input sum plus bias
+     * @return activation(x)
+     */
+    public abstract double apply(double x);
+
+    /**
+     * Calculates the derivative of the activation given its output. This is
+     * used in the backpropagation algorithm.
+     *
+     * @param y a value returned by apply()
+     * @return activation'(x) where y = activation(x)
+     */
+    public abstract double derivative(double y);
+
+    /**
+     * Holds the sampled sigmoid values used by FAST_SIGMOID. Enum constants can
+     * not reference static fields during initialization, so the table lives here.
+     */
+    private static final class SigmoidTable {
+        private static final double[] VALUES = new double[(int) (2 * TABLE_RANGE * TABLE_SCALE) + 2];
+
+        static {
+            for (int i = 0; i < VALUES.length; i++)
+                VALUES[i] = 1d / (1 + Math.exp(-(i / TABLE_SCALE - TABLE_RANGE)));
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package Evolution;
+
+import FlappyBird.Population;
+import Network.NeuralNetwork;
+import TrainSet.Precision;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Evolves the weights of network controllers with a genetic algorithm instead of
+ * training them on captured gameplay. Each genome is a flat weight and bias
+ * vector (see NeuralNetwork.getParameters). Its fitness is the average distance its
+ * bird survives in headless games, capped at a maximum number of ticks.
+ *
+ * Every generation the genomes are split into chunks that are evaluated on a
+ * work-stealing ForkJoinPool. Each chunk flies its birds through its own
+ * Population; all chunks use the same game seeds, so every genome sees the same
+ * pipes and a genome's fitness does not depend on how the work was split. The
+ * next generation keeps the best genomes (elitism) and fills the rest with
+ * children of tournament-selected parents (uniform crossover plus gaussian
+ * mutation). All randomness comes from one seeded Random, so a run is
+ * deterministic for a given seed. Genomes are always doubles; setPrecision
+ * chooses whether the birds fly a Network or a FloatNetwork.
+ *
+ * @author JAForewit
+ */
+public class NeuroEvolution {
+    private static final Logger LOGGER = Logger.getLogger( NeuroEvolution.class.getName() );
+    private static final int CHUNK_SIZE = 32;
+    private static final int TOURNAMENT_SIZE = 3;
+    private static final double JUMP_THRESHOLD = 0.5;
+
+    private final int[] layers;
+    private final int populationSize;
+    private final int parameterCount;
+    private final Random random;
+    private final ForkJoinPool pool;
+    private double[][] genomes;         //genomes[genome][parameter]
+    private double[][] children;        //next generation, swapped with genomes
+    private final double[] fitness;     //fitness[genome]
+    private final long[] gameSeeds;     //seeds of this generation's games
+    private int eliteCount = 2;
+    private double mutationRate = 0.1;
+    private double mutationStrength = 0.3;
+    private int maxTicks = 10000;
+    private Precision precision = Precision.DOUBLE;
+    private int generation;
+    private double[] best;
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates a random starting population.
+     *
+     * @param populationSize number of genomes per generation
+     * @param games number of games each genome plays per generation
+     * @param seed seed for every random choice
+     * @param threads number of evaluation threads
+     * @param layers layer sizes of the evolved network (5 inputs, 1 output)
+     */
+    public NeuroEvolution(int populationSize, int games, long seed, int threads, int... layers) {
+        this.layers = layers;
+        this.populationSize = populationSize;
+        this.parameterCount = NeuralNetwork.create(precision, layers).getParameterCount();
+        this.random = new Random(seed);
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.fitness = new double[populationSize];
+        this.gameSeeds = new long[Math.max(1, games)];
+
+        genomes = new double[populationSize][parameterCount];
+        children = new double[populationSize][parameterCount];
+        for (double[] genome : genomes) {
+            for (int i = 0; i < parameterCount; i++) genome[i] = random.nextDouble() * 2 - 1;
+        }
+    }
+
+    public void setEliteCount(int eliteCount) { this.eliteCount = eliteCount; }
+    public void setMutationRate(double mutationRate) { this.mutationRate = mutationRate; }
+    public void setMutationStrength(double mutationStrength) { this.mutationStrength = mutationStrength; }
+    public void setMaxTicks(int maxTicks) { this.maxTicks = maxTicks; }
+    public void setPrecision(Precision precision) { this.precision = precision; }
+
+    /**
+     * Runs a number of generations, logging the fitness and the time spent on
+     * evaluation and breeding after each one.
+     *
+     * @param generations number of generations
+     */
+    public void evolve(int generations) {
+        for (int g = 0; g < generations; g++) {
+            long start = System.nanoTime();
+            evaluate();
+            long evaluated = System.nanoTime();
+            breed();
+            long bred = System.nanoTime();
+
+            LOGGER.log(Level.INFO, String.format("generation %d: best %.0f, mean %.0f, all-time best %.0f"
+                            + " (evaluation %d ms, breeding %d ms)", generation, max(fitness), mean(fitness),
+                    bestFitness, (evaluated - start) / 1000000, (bred - evaluated) / 1000000));
+            generation++;
+        }
+    }
+
+    /**
+     * Returns a network of the chosen precision holding the fittest genome found
+     * so far, ready for GamePanel.loadANN().
+     *
+     * @return the best controller
+     */
+    public NeuralNetwork getBestNetwork() {
+        NeuralNetwork network = NeuralNetwork.create(precision, layers.clone());
+        network.setParameters(best != null ? best : genomes[0]);
+        return network;
+    }
+
+    public double getBestFitness() { return bestFitness; }
+    public int getGeneration() { return generation; }
+
+    /**
+     * Stops the evaluation threads.
+     */
+    public void shutdown() { pool.shutdown(); }
+
+    //scores every genome of the current generation
+    private void evaluate() {
+        for (int i = 0; i < gameSeeds.length; i++) gameSeeds[i] = random.nextLong();
+        Arrays.fill(fitness, 0);
+        pool.invoke(new Evaluation(0, populationSize));
+
+        for (int i = 0; i < populationSize; i++) {
+            fitness[i] /= gameSeeds.length;
+            if (fitness[i] > bestFitness) {
+                bestFitness = fitness[i];
+                best = genomes[i].clone();
+            }
+        }
+    }
+
+    //plays every game with the genomes [from, to) as one population
+    private void evaluate(int from, int to) {
+        int count = to - from;
+        NeuralNetwork[] networks = new NeuralNetwork[count];
+        for (int i = 0; i < count; i++) {
+            networks[i] = NeuralNetwork.create(precision, layers.clone());
+            networks[i].setParameters(genomes[from + i]);
+        }
+        double[] inputs = new double[count * Population.INPUT_SIZE];
+        double[] input = new double[Population.INPUT_SIZE];
+        double[] outputs = new double[count];
+
+        for (long seed : gameSeeds) {
+            Population population = new Population(count, seed);
+            for (int tick = 0; tick < maxTicks && population.getAliveCount() > 0; tick++) {
+                population.gatherInputs(inputs);
+                for (int i = 0; i < count; i++) {
+                    if (!population.isAlive(i)) continue;
+                    System.arraycopy(inputs, i * Population.INPUT_SIZE, input, 0, Population.INPUT_SIZE);
+                    outputs[i] = networks[i].calculateOutput(input)[0];
+                }
+                population.jump(outputs, JUMP_THRESHOLD);
+                population.step();
+            }
+            for (int i = 0; i < count; i++) fitness[from + i] += population.getDistance(i);
+        }
+    }
+
+    //creates the next generation from the current one
+    private void breed() {
+        Integer[] ranking = new Integer[populationSize];
+        for (int i = 0; i < populationSize; i++) ranking[i] = i;
+        Arrays.sort(ranking, (a, b) -> Double.compare(fitness[b], fitness[a]));
+
+        int elites = Math.min(eliteCount, populationSize);
+        for (int i = 0; i < elites; i++) System.arraycopy(genomes[ranking[i]], 0, children[i], 0, parameterCount);
+
+        for (int i = elites; i < populationSize; i++) {
+            double[] mother = genomes[select()];
+            double[] father = genomes[select()];
+            double[] child = children[i];
+            for (int p = 0; p < parameterCount; p++) {
+                child[p] = random.nextBoolean() ? mother[p] : father[p];
+                if (random.nextDouble() < mutationRate) child[p] += random.nextGaussian() * mutationStrength;
+            }
+        }
+
+        double[][] swap = genomes;
+        genomes = children;
+        children = swap;
+    }
+
+    //tournament selection
+    private int select() {
+        int winner = random.nextInt(populationSize);
+        for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+            int challenger = random.nextInt(populationSize);
+            if (fitness[challenger] > fitness[winner]) winner = challenger;
+        }
+        return winner;
+    }
+
+    private static double max(double[] values) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double v : values) max = Math.max(max, v);
+        return max;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return sum / values.length;
+    }
+
+    //splits the genomes into chunks for the work-stealing pool
+    private class Evaluation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from, to;
+
+        Evaluation(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Evaluation(from, mid), new Evaluation(mid, to));
+            } else {
+                evaluate(from, to);
+            }
+        }
+    }
+}
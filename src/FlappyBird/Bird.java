@@ -1,54 +1,20 @@
 package FlappyBird;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
-import java.io.File;
-import java.io.IOException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
- * +x -> right
- * -x -> left
- * +y -> down
- * -y -> up
+ * Draws the bird. The bird's position and physics live in Simulation.
  *
  * @author JAForewit
+ * @see Simulation
  */
-public class Bird extends Rectangle {
+public class Bird {
 
-    private static final Logger LOGGER = Logger.getLogger( Bird.class.getName() );
-    private static final int WIDTH = 50, HEIGHT = 40;
-    private int initialY;
-    private float vy;
-    private Image img;
+    private final Image img;
 
-    Bird(int x, int y) {
-        initialY = y;
-        setBounds(x,y,WIDTH,HEIGHT);
+    Bird() { img = Sprites.BIRD; }
 
-        try { img = ImageIO.read(new File("./src/FlappyBird/bird.png")); }
-        catch(IOException e) {
-            LOGGER.log(Level.SEVERE, "Could not load bird image.");
-            e.printStackTrace();
-        }
+    void update(Graphics g, int x, int y) {
+        g.drawImage(img, x,y, null);
     }
-
-    void jump() { vy = -8; }
-
-    void physics() {
-        y+=vy;
-        vy+=0.5f;
-    }
-
-    void update(Graphics g) {
-        g.drawImage(img, x,y,WIDTH,HEIGHT, null);
-    }
-
-    void reset() {
-        y = initialY;
-        vy = 0;
-    }
-
-    float getVy() { return vy; }
 }
@@ -0,0 +1,20 @@
+package FlappyBird;
+
+/**
+ * A player of a Simulation. The controller is asked once per tick, before the
+ * tick runs, whether the bird should jump, and the answer takes effect in that
+ * same tick (see Simulation.step(Controller)).
+ *
+ * @author JAForewit
+ * @see Simulation
+ */
+public interface Controller {
+
+    /**
+     * Decides whether the bird jumps this tick.
+     *
+     * @param sim the game being played
+     * @return true to jump
+     */
+    boolean jump(Simulation sim);
+}
@@ -4,158 +4,343 @@ package FlappyBird;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.lang.reflect.Array;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.awt.image.BufferStrategy;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import Network.Network;
+import Metrics.GameMetrics;
+import Network.NeuralNetwork;
+import Network.OnlineTrainer;
 import OrganicNN.*;
-import sun.jvm.hotspot.memory.OneContigSpaceCardGeneration;
-
-public class GamePanel extends JPanel implements KeyListener, ActionListener {
-
+import Replay.SessionRecorder;
+import TrainSet.CaptureWriter;
+import TrainSet.TrainSetWriter;
+
+/**
+ * Plays Flappy Bird in a window. The game itself runs in a Simulation, which is
+ * advanced by its own thread at a fixed tick rate. After every tick that thread
+ * publishes an immutable Snapshot of the game. A second thread draws the latest
+ * snapshot at its own frame rate with an active rendering loop (BufferStrategy),
+ * interpolating the motion since the last tick so frames between ticks are
+ * smooth. The Swing event thread only handles the keyboard and dialogs, so slow
+ * inference or a blocking dialog can't delay input or painting.
+ *
+ * Both loops sleep until absolute deadlines, so pacing errors don't accumulate.
+ * The render loop records how far each frame interval is from the target
+ * (see getFrameJitterMean and getFrameJitterMax). Tick, render, data capture
+ * and inference latencies and missed ticks and frames are recorded in
+ * GameMetrics, which is registered as an MBean.
+ *
+ * @see Simulation
+ */
+public class GamePanel extends Canvas implements KeyListener {
+
+    private static final long serialVersionUID = 1L;
     private static final Logger LOGGER = Logger.getLogger( GamePanel.class.getName() );
-    private static final int FPS = 60, WIDTH = 640, HEIGHT = 480, SPEED = 3, PIPE_W = 50;
-    private static final int GAP_MAX = 220, GAP_MIN = 150, GAP_CENTER_VARIANCE = 80;
+    private static final int TICK_RATE = 60, FPS = 60, WIDTH = Simulation.WIDTH, HEIGHT = Simulation.HEIGHT;
+    private static final long SPIN_NANOS = 1000000;   // busy-wait this close to a deadline
+    private static final int MAX_CATCH_UP = 5;         // ticks run back to back before skipping ahead
+    private static final int CAPTURE_CAPACITY = 1 << 14; // captured samples buffered for the writer thread
+    private static final long CAPTURE_POLL_MILLIS = 50;  // how often stopCapture checks the simulation thread
+    private static final int IDLE_KEEP = 4;            // keep one in this many samples without a jump
     private static final Color bg = new Color(0, 158, 158);
     private static final Font scoreFont = new Font("Comic Sans MS", Font.BOLD, 18);
     private static final Font pauseFont = new Font("Arial", Font.BOLD, 48);
     private static final Font helpFont = new Font("Arial", Font.BOLD, 18);
-    private int time, score;
-    private boolean paused, dead, usingAI;
+    private final GameMetrics metrics = new GameMetrics();
+    private final AtomicBoolean pauseRequested = new AtomicBoolean();
+    private final AtomicBoolean aiRequested = new AtomicBoolean();
+    private volatile boolean running;
+    private volatile Snapshot snapshot;
+    private volatile Controller ai;
+    private volatile SessionRecorder recorder;
+    private SessionRecorder recording;     // the recorder of the current game, if any
+    private Random seeds;                  // seeds of each game's pipe generator
+    private long gameSeed;
+    private boolean paused, usingAI;
+    private long tickNanos, frameNanos;
+    private Simulation sim;
     private Bird bird;
+    private Pipe pipe;
     private JFrame frame;
-    private HashMap<Pipe[], int[]> pipes;
-    private ArrayList<double[][]> gameDataSet;
-    private Timer timer;
-    private OrganicNN ONN;
-    private Network ANN;
-    private Robot AIRobot;
-    // pipes format:
-    // Pipe[0]=top, Pipe[1]=bottom
-    // int[0]=gap, int[1]=gap y center
-
-    public void start() {
-        bird = new Bird(110, HEIGHT/2-70);
-        pipes = new HashMap<>();
-        gameDataSet = new ArrayList<>();
-        time = 0;
-        score = 0;
+    private Thread simThread, renderThread;
+    private KeyboardController keyboard;
+    private volatile CaptureWriter capture;                 // the capture started by capture(), if any
+    private final AtomicReference<CaptureWriter> pendingCapture = new AtomicReference<>(); // not yet adopted
+    private volatile boolean captureStopRequested;
+    private volatile OnlineTrainer learner;
+    private CaptureWriter capturing;       // the capture the simulation thread is writing to
+    private final double[] captureInputs = new double[Simulation.INPUT_SIZE];
+    private final double[] captureTarget = new double[1];
+
+    // frame pacing, written by the render thread only
+    private volatile long frames, jitterSum, jitterMax;
+
+    public void start() { start(TICK_RATE, FPS); }
+
+    /**
+     * Opens the window and starts the simulation and render threads.
+     *
+     * @param tickRate simulation ticks per second
+     * @param frameRate frames drawn per second
+     */
+    public void start(int tickRate, int frameRate) {
+        seeds = new Random(System.nanoTime());
+        gameSeed = seeds.nextLong();
+        sim = new Simulation(gameSeed);
+        bird = new Bird();
+        pipe = new Pipe();
         paused = true;
-        dead = false;
+        tickNanos = 1000000000L / tickRate;
+        frameNanos = 1000000000L / frameRate;
 
-        // setup AI robot
-        ONN = null;
-        ANN = null;
+        // players
+        keyboard = new KeyboardController();
+        ai = null;
         usingAI = false;
-        try { AIRobot = new Robot(); }
-        catch(Exception e) {
-            LOGGER.log(Level.SEVERE, "Could not create AI robot.");
-            e.printStackTrace();
-        }
 
         frame = new JFrame("Flappy Bird");
+        setPreferredSize(new Dimension(WIDTH, HEIGHT));
+        setIgnoreRepaint(true);
+        frame.setIgnoreRepaint(true);
         frame.add(this);
-        frame.setSize(WIDTH, HEIGHT);
+        frame.pack();
+        frame.setResizable(false);
         frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) { running = false; }
+        });
         frame.setVisible(true);
         frame.addKeyListener(this);
-
-        timer = new Timer(1000/FPS, this);
-        timer.start();
+        frame.addKeyListener(keyboard);
+        addKeyListener(this);
+        addKeyListener(keyboard);
+        createBufferStrategy(2);
+
+        snapshot = new Snapshot(sim, sim.getBirdY(), false, paused, usingAI);
+        metrics.register();
+        running = true;
+        simThread = new Thread(this::simulate, "Simulation");
+        renderThread = new Thread(this::render, "Render");
+        simThread.setDaemon(true);
+        renderThread.setDaemon(true);
+        simThread.start();
+        renderThread.start();
     }
     public void stop() {
-        timer.stop();
+        running = false;
+        try {
+            simThread.join();
+            renderThread.join();
+        }
+        catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+        finishAbandonedCapture();
+        if (recorder != null) {
+            try { recorder.close(); }
+            catch(IOException e) { e.printStackTrace(); }
+        }
         frame.dispatchEvent(new WindowEvent(frame, WindowEvent.WINDOW_CLOSING));
     }
 
-    @Override
-    public void paintComponent(Graphics g) {
-        g.setColor(bg);
-        g.fillRect(0,0,WIDTH, HEIGHT);
-
-        bird.update(g);
-        for (Pipe[] set : pipes.keySet()) {
-            for (Pipe p : set) p.update(g);
-        }
-
-        g.setFont(scoreFont);
-        g.setColor(Color.BLACK);
-        g.drawString("Score: "+ score, 10, 30);
-
-        if (usingAI) g.drawString("AI", 12, 55);
+    /**
+     * Records every game from the next one on (or the current one if it has not
+     * started yet) to a session log, see Replay.SessionLog.
+     *
+     * @param filename the log file, replaced if it exists
+     * @throws IOException if the file can not be created
+     */
+    public void record(String filename) throws IOException {
+        recorder = SessionRecorder.create(filename);
+    }
 
-        if(paused) {
-            g.setFont(pauseFont);
-            g.setColor(new Color(0,0,0,170));
-            g.drawString("PAUSED", WIDTH/2-100, HEIGHT/2-30);
-            g.setFont(helpFont);
-            g.drawString("press space to start", WIDTH/2-88, HEIGHT/2-5);
+    public GameMetrics getMetrics() { return metrics; }
+
+    /**
+     * Returns the average distance of a frame interval from the target interval.
+     *
+     * @return mean jitter in nanoseconds
+     */
+    public long getFrameJitterMean() { return frames == 0 ? 0 : jitterSum / frames; }
+
+    /**
+     * Returns the largest distance of a frame interval from the target interval.
+     *
+     * @return max jitter in nanoseconds
+     */
+    public long getFrameJitterMax() { return jitterMax; }
+
+    // simulation thread: runs ticks at a fixed rate
+    private void simulate() {
+        long deadline = System.nanoTime();
+        while (running) {
+            for (int i = 0; i < MAX_CATCH_UP && System.nanoTime() - deadline >= 0; i++) {
+                long start = System.nanoTime();
+                tick();
+                metrics.tick.record(System.nanoTime() - start);
+                deadline += tickNanos;
+            }
+            // too far behind (GC pause, debugger): drop the missed ticks
+            long late = System.nanoTime() - deadline;
+            if (late >= 0) {
+                metrics.missedTicks(late / tickNanos + 1);
+                deadline = System.nanoTime() + tickNanos;
+            }
+            sleepUntil(deadline);
         }
     }
 
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        repaint();
+    private void tick() {
+        if (captureStopRequested) {
+            captureStopRequested = false;
+            if (capturing != null) capturing.finish();
+            capturing = null;
+        }
+        CaptureWriter next = pendingCapture.getAndSet(null);
+        if (next != null) {
+            if (capturing != null) capturing.finish();
+            capturing = next;
+        }
+        if (pauseRequested.getAndSet(false)) paused = !paused;
+        if (aiRequested.getAndSet(false)) usingAI = ai != null && !usingAI;
+        if (recording == null && recorder != null && sim.getTime() == 0) {
+            recording = recorder;
+            recording.beginGame(gameSeed);
+        }
+        if (paused) {
+            keyboard.clear();
+            publish(sim.getBirdY(), false);
+            return;
+        }
 
-        if (paused) return;
+        Controller controller = usingAI ? ai : keyboard;
+        long start = System.nanoTime();
+        boolean jump = controller.jump(sim);
+        if (usingAI) metrics.inference.record(System.nanoTime() - start);
+        if (jump) {
+            sim.jump();
+            if (recording != null) recording.jump(sim.getTime());
+        }
 
+        start = System.nanoTime();
         captureData();
+        metrics.capture.record(System.nanoTime() - start);
 
         // Check if the bird is dead
-        if (dead) {
-            JOptionPane.showMessageDialog(frame, "You lose!\n"+"Your score was: "+score+".");
-            bird.reset();
-            pipes.clear();
-            score = 0;
+        if (sim.isDead()) {
+            int score = sim.getScore();
+            SwingUtilities.invokeLater(() ->
+                    JOptionPane.showMessageDialog(frame, "You lose!\n"+"Your score was: "+score+"."));
+            if (recording != null) {
+                try { recording.endGame(sim.getTime()); }
+                catch(IOException e) {
+                    LOGGER.log(Level.SEVERE, "Could not record game, recording stopped.");
+                    e.printStackTrace();
+                    recording = recorder = null;
+                }
+            }
+            gameSeed = seeds.nextLong();
+            sim.reset(gameSeed);
+            if (recording != null) recording.beginGame(gameSeed);
             paused = true;
-            dead = false;
+            publish(sim.getBirdY(), false);
             return;
         }
 
-        // create new pipes
-        if (time % 90 == 0) {
-            int gap = (int) (Math.random() * (GAP_MAX - GAP_MIN) + 1) + GAP_MIN;
-            int yCenter = (int) (Math.random() * 2 * GAP_CENTER_VARIANCE + 1) + HEIGHT/2 - GAP_CENTER_VARIANCE;
-            Pipe[] set = new Pipe[2];
-            set[0] = new Pipe(SPEED, WIDTH, 0, PIPE_W, yCenter - gap/2);
-            set[1] = new Pipe(SPEED, WIDTH, yCenter + gap/2, PIPE_W, HEIGHT - (yCenter + gap/2));
-            int[] gapInfo = {gap, yCenter};
-            pipes.put(set, gapInfo);
+        int birdY = sim.getBirdY();
+        sim.step();
+        publish(birdY, true);
+    }
+
+    private void publish(int previousBirdY, boolean moving) {
+        snapshot = new Snapshot(sim, previousBirdY, moving, paused, usingAI);
+    }
+
+    // render thread: draws the latest snapshot at a fixed frame rate
+    private void render() {
+        BufferStrategy strategy = getBufferStrategy();
+        long deadline = System.nanoTime(), last = 0;
+        while (running) {
+            sleepUntil(deadline);
+            long now = System.nanoTime();
+            if (last != 0) {
+                long jitter = Math.abs(now - last - frameNanos);
+                jitterSum += jitter;
+                jitterMax = Math.max(jitterMax, jitter);
+                frames++;
+            }
+            last = now;
+
+            Snapshot s = snapshot;
+            double alpha = s.moving ? Math.min(1, (double) (now - s.time) / tickNanos) : 1;
+            long start = System.nanoTime();
+            try {
+                do {
+                    do {
+                        Graphics g = strategy.getDrawGraphics();
+                        draw(g, s, alpha);
+                        g.dispose();
+                    } while (strategy.contentsRestored());
+                    strategy.show();
+                } while (strategy.contentsLost());
+            }
+            catch(IllegalStateException e) { break; }   // window was closed
+            Toolkit.getDefaultToolkit().sync();
+            metrics.render.record(System.nanoTime() - start);
+
+            deadline += frameNanos;
+            long late = System.nanoTime() - deadline;
+            if (late >= frameNanos) {
+                metrics.missedFrames(late / frameNanos);
+                deadline = System.nanoTime();
+            }
         }
+    }
 
-        // check for collisions with walls
-        if (!this.getBounds().contains(bird)) dead = true;
-        bird.physics();
+    // draws a snapshot, moved alpha of the way from the previous tick
+    private void draw(Graphics g, Snapshot s, double alpha) {
+        g.setColor(bg);
+        g.fillRect(0,0,WIDTH, HEIGHT);
 
-        ArrayList<Pipe[]> toRemove = new ArrayList<>();
-        for (Pipe[] set : pipes.keySet()) {
-            for (Pipe p : set) {
+        int birdY = (int) Math.round(s.previousBirdY + (s.birdY - s.previousBirdY) * alpha);
+        int offset = s.moving ? (int) Math.round(Simulation.SPEED * (1 - alpha)) : 0;
+        bird.update(g, Simulation.BIRD_X, birdY);
+        for (int i = 0; i < s.pipeX.length; i++) {
+            int x = s.pipeX[i] + offset;
+            pipe.update(g, x, 0, Simulation.PIPE_W, s.pipeTop[i]);
+            pipe.update(g, x, s.pipeBottom[i], Simulation.PIPE_W, HEIGHT - s.pipeBottom[i]);
+        }
 
-                // check for collisions with pipe
-                if (bird.intersects(p)) dead = true;
-                else p.physics();
-            }
-            // remove passed pipes and add to score
-            int setX = set[0].x;
-            if (setX >= bird.x && setX < bird.x + SPEED) score++;
-            if (setX+PIPE_W <= 0) toRemove.add(set);
+        g.setFont(scoreFont);
+        g.setColor(Color.BLACK);
+        g.drawString("Score: "+ s.score, 10, 30);
+
+        if (s.usingAI) g.drawString("AI", 12, 55);
+
+        if(s.paused) {
+            g.setFont(pauseFont);
+            g.setColor(new Color(0,0,0,170));
+            g.drawString("PAUSED", WIDTH/2-100, HEIGHT/2-30);
+            g.setFont(helpFont);
+            g.drawString("press space to start", WIDTH/2-88, HEIGHT/2-5);
         }
-        for (Pipe[] set : toRemove) pipes.remove(set);
+    }
 
-        time++;
+    // parks until the deadline, spinning for the last moment to keep jitter low
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS) LockSupport.parkNanos(remaining - SPIN_NANOS);
+        while (deadline - System.nanoTime() > 0) Thread.yield();
     }
 
     public void keyPressed(KeyEvent e) {
-        if(e.getKeyCode()==KeyEvent.VK_UP) bird.jump();
-        else if(e.getKeyCode()==KeyEvent.VK_SPACE) paused = !paused;
-        else if(e.getKeyCode()==KeyEvent.VK_ALT) {
-            if (ONN != null || ANN != null) usingAI = !usingAI;
-            else usingAI = false;
-        }
+        if(e.getKeyCode()==KeyEvent.VK_SPACE) pauseRequested.set(true);
+        else if(e.getKeyCode()==KeyEvent.VK_ALT) aiRequested.set(true);
     }
 
     public void keyReleased(KeyEvent e) {}
@@ -164,67 +349,108 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
 
     private void captureData() {
 
-        if ((ONN != null || ANN != null) && !usingAI) return;
-
-        double[][] data = new double[2][];
-        data[0] = new double[5];
-        data[1] = new double[1];
+        if (usingAI) return;
+        OnlineTrainer trainer = learner;
+        if (capturing == null && trainer == null) return;
 
-        if (bird.getVy() == -8 && gameDataSet.size()>1) {
-            gameDataSet.get(gameDataSet.size()-1)[1][0] = 1;
+        boolean jumped = sim.getBirdVy() == Simulation.JUMP_VELOCITY;
+        sim.gatherInputs(captureInputs);
+        if (capturing != null) {
+            if (jumped) capturing.labelLast(0, 1);
+            capturing.add(captureInputs, captureTarget);
         }
-
-        int distance = Integer.MAX_VALUE, gap = 0, gapY = 0;;
-        int nextDistance;
-        for (Pipe[] set : pipes.keySet()) {
-            nextDistance = set[0].x - bird.x;
-            if (nextDistance < distance && nextDistance > 0) {
-                distance = nextDistance;
-                gap = pipes.get(set)[0];
-                gapY = pipes.get(set)[1];
-            }
+        if (trainer != null) {
+            if (jumped) trainer.labelLast(0, 1);
+            trainer.add(captureInputs, captureTarget);
         }
+    }
 
-        data[0][0] = bird.y/100d ;
-        data[0][1] = bird.getVy()/2d;
-        data[0][2] = gap/100d;
-        data[0][3] = gapY/100d;
-        data[0][4] = distance/100d;
-        data[1][0] = 0;
-
-        if (usingAI) {
-            if (ONN != null) {
-                if (ONN.calculateOutput(data[0])[0] >= 0.5) {
-                    AIRobot.keyPress(KeyEvent.VK_UP);
-                }
-            }
-            else if (ANN != null) {
-                if (ANN.calculateOutput(data[0])[0] >= 0.5) {
-                    AIRobot.keyPress(KeyEvent.VK_UP);
-                }
-            }
+    /**
+     * Starts streaming captured gameplay to a data file (see TrainSet.TrainSetFile).
+     * Samples are trimmed and balanced on the way to the file by a CaptureWriter.
+     *
+     * @param filename the data file, replaced if it exists
+     * @param trim samples dropped from the start and end of the session
+     * @throws IOException if the file can not be created
+     */
+    public synchronized void capture(String filename, int trim) throws IOException {
+        stopCapture();
+        TrainSetWriter writer = TrainSetWriter.create(filename, Simulation.INPUT_SIZE, 1);
+        capture = new CaptureWriter(writer, Simulation.INPUT_SIZE, 1, CAPTURE_CAPACITY, trim, IDLE_KEEP);
+        pendingCapture.set(capture);
+    }
 
-        } else gameDataSet.add(data);
+    /**
+     * Stops capturing and waits until every kept sample is in the data file.
+     *
+     * @return number of samples written, or 0 if nothing was being captured
+     */
+    public synchronized long stopCapture() {
+        CaptureWriter writer = capture;
+        if (writer == null) return 0;
+        capture = null;
+        // only the producer may finish a capture: this thread if the simulation thread
+        // never adopted it, else the simulation thread (or stop(), once it has ended)
+        if (pendingCapture.compareAndSet(writer, null)) writer.finish();
+        else {
+            captureStopRequested = true;
+            while (!writer.awaitClose(CAPTURE_POLL_MILLIS))
+                if (!simThread.isAlive()) finishAbandonedCapture();
+        }
+        writer.awaitClose();
+        return writer.getWritten();
     }
 
-    public ArrayList<double[][]> getDataSet(int trim) {
+    // once the simulation thread has ended: finishes its capture, and one it never adopted
+    private synchronized void finishAbandonedCapture() {
+        CaptureWriter pending = pendingCapture.getAndSet(null);
+        if (pending != null) pending.finish();
+        if (capturing != null) capturing.finish();
+        capturing = null;
+        captureStopRequested = false;
+    }
 
-        // trims the given amount from the top and bottom of the data set
-        if (gameDataSet.size() <= trim*2) return null;
-        for (int i = 0; i < trim; i++) {
-            gameDataSet.remove(0);
-            gameDataSet.remove(gameDataSet.size()-1);
-        }
+    /**
+     * Turns on continuous learning: the human player's samples are also fed to
+     * an OnlineTrainer, and the AI plays with the trainer's latest snapshot.
+     *
+     * @param trainer the background trainer
+     */
+    public void learn(OnlineTrainer trainer) {
+        ai = new NetworkController(trainer::getSnapshot, 0.5);
+        learner = trainer;
+    }
 
-        for (int i = 0; i < 2; i++) {
-            for (int j = 0; j < gameDataSet.size(); j++) {
-                if (j % 2 == 0 && gameDataSet.get(j)[1][0] == 0) gameDataSet.remove(j);
+    public void loadONN(OrganicNN net) { ai = new OrganicNNController(net); }
+    public void loadANN(NeuralNetwork net) { ai = new NetworkController(net); }
+
+    /**
+     * An immutable copy of everything drawn for one tick.
+     */
+    private static final class Snapshot {
+        final long time;            // System.nanoTime() when published
+        final boolean moving;       // true if the game advanced this tick
+        final boolean paused, usingAI;
+        final int birdY, previousBirdY, score;
+        final int[] pipeX, pipeTop, pipeBottom;
+
+        Snapshot(Simulation sim, int previousBirdY, boolean moving, boolean paused, boolean usingAI) {
+            this.time = System.nanoTime();
+            this.moving = moving;
+            this.paused = paused;
+            this.usingAI = usingAI;
+            this.birdY = sim.getBirdY();
+            this.previousBirdY = moving ? previousBirdY : birdY;
+            this.score = sim.getScore();
+            int count = sim.getPipeCount();
+            pipeX = new int[count];
+            pipeTop = new int[count];
+            pipeBottom = new int[count];
+            for (int i = 0; i < count; i++) {
+                pipeX[i] = sim.getPipeX(i);
+                pipeTop[i] = sim.getPipeCenter(i) - sim.getPipeGap(i)/2;
+                pipeBottom[i] = sim.getPipeCenter(i) + sim.getPipeGap(i)/2;
             }
         }
-
-        return gameDataSet;
     }
-
-    public void loadONN(OrganicNN net) { ONN = net; }
-    public void loadANN(Network net) { ANN = net; }
 }
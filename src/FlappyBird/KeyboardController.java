@@ -0,0 +1,28 @@
+package FlappyBird;
+
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A human player. The up arrow (pressed on the Swing event thread) queues a
+ * jump, which the simulation thread picks up on its next tick. Jumps queued
+ * while the game is paused are dropped with clear().
+ *
+ * @author JAForewit
+ * @see Controller
+ */
+public class KeyboardController extends KeyAdapter implements Controller {
+    private final AtomicBoolean jumpRequested = new AtomicBoolean();
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_UP) jumpRequested.set(true);
+    }
+
+    @Override
+    public boolean jump(Simulation sim) { return jumpRequested.getAndSet(false); }
+
+    // forgets a queued jump
+    void clear() { jumpRequested.set(false); }
+}
@@ -0,0 +1,42 @@
+package FlappyBird;
+
+import Network.InferenceContext;
+import Network.NeuralNetwork;
+
+import java.util.function.Supplier;
+
+/**
+ * A network player (Network or FloatNetwork). The bird jumps when the
+ * network's output is at least the threshold. Each controller has its own
+ * InferenceContext, so any number of controllers can share one network across
+ * threads.
+ *
+ * A controller can also follow a network that is replaced while it plays (for
+ * example OnlineTrainer.getSnapshot): the supplier is read once per tick, and
+ * every network it returns must have the same layer sizes.
+ *
+ * @author JAForewit
+ * @see Controller
+ */
+public class NetworkController implements Controller {
+    private final Supplier<? extends NeuralNetwork> network;
+    private final InferenceContext context;
+    private final double threshold;
+    private final double[] inputs = new double[Simulation.INPUT_SIZE];
+
+    public NetworkController(NeuralNetwork network) { this(network, 0.5); }
+
+    public NetworkController(NeuralNetwork network, double threshold) { this(() -> network, threshold); }
+
+    public NetworkController(Supplier<? extends NeuralNetwork> network, double threshold) {
+        this.network = network;
+        this.context = new InferenceContext(network.get());
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean jump(Simulation sim) {
+        sim.gatherInputs(inputs);
+        return network.get().calculateOutput(context, inputs)[0] >= threshold;
+    }
+}
@@ -0,0 +1,32 @@
+package FlappyBird;
+
+import OrganicNN.OrganicNN;
+
+/**
+ * An OrganicNN player. The bird jumps when the network's output is at least
+ * the threshold. OrganicNN evaluates in its own scratch space, so controllers
+ * sharing one network must run on the same thread.
+ *
+ * @author JAForewit
+ * @see Controller
+ */
+public class OrganicNNController implements Controller {
+    private final OrganicNN network;
+    private final double threshold;
+    private final double[] inputs = new double[Simulation.INPUT_SIZE];
+    private final double[] outputs;
+
+    public OrganicNNController(OrganicNN network) { this(network, 0.5); }
+
+    public OrganicNNController(OrganicNN network, double threshold) {
+        this.network = network;
+        this.threshold = threshold;
+        this.outputs = new double[network.getOutputCount()];
+    }
+
+    @Override
+    public boolean jump(Simulation sim) {
+        sim.gatherInputs(inputs);
+        return network.calculateOutput(inputs, outputs)[0] >= threshold;
+    }
+}
@@ -1,33 +1,22 @@
 package FlappyBird;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
-import java.io.File;
-import java.io.IOException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
-public class Pipe extends Rectangle {
-    private static final Logger LOGGER = Logger.getLogger( Pipe.class.getName() );
-    private int vx;
-    private Image img;
+/**
+ * Draws pipes. The pipes' positions and physics live in Simulation.
+ *
+ * @see Simulation
+ */
+public class Pipe {
+    private final Image img;
 
-    Pipe(int vx, int x, int y, int w, int h) {
-        this.vx = vx;
-        setBounds(x,y,w,h);
+    Pipe() { img = Sprites.PIPE; }
 
-        try { img = ImageIO.read(new File("./src/FlappyBird/pipe.png")); }
-        catch(IOException e) {
-            LOGGER.log(Level.SEVERE, "Could not load pipe image.");
-            e.printStackTrace();
-        }
+    void update(Graphics g, int x, int y, int width, int height) {
+        // copy the top of the pre-scaled column; only unusual sizes are scaled
+        if (width == Simulation.PIPE_W && height <= Simulation.HEIGHT)
+            g.drawImage(img, x,y,x+width,y+height, 0,0,width,height, null);
+        else
+            g.drawImage(img, x,y,width,height, null);
     }
-
-    void update(Graphics g) {
-        // TODO: draw graphics
-        g.drawImage(img, x,y,width,height, null);
-
-    }
-
-    void physics() { x -= vx; }
 }
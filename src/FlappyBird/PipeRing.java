@@ -0,0 +1,103 @@
+package FlappyBird;
+
+/**
+ * The pipe pairs of a game, stored in spawn order in a fixed-capacity ring
+ * buffer of primitives. Pipes only ever enter on the right and leave on the
+ * left, all moving at the same speed, so the pipes are always sorted by x.
+ *
+ * Every pipe moves by the same amount each tick, so instead of moving them one
+ * by one the ring stores each pipe's position in world coordinates and keeps a
+ * single scroll offset. The queries the game needs every tick (the pipe the
+ * bird can hit, the next pipe ahead of the bird, newly passed pipes and expired
+ * pipes) each keep a cursor that only moves forward. So every query is
+ * constant-time, and nothing is allocated after construction.
+ *
+ * @author JAForewit
+ * @see Simulation
+ * @see Population
+ */
+public final class PipeRing {
+    // pipes on screen at once, rounded up to a power of two
+    private static final int CAPACITY = Integer.highestOneBit(
+            ((Simulation.WIDTH + Simulation.PIPE_W) / (Simulation.SPAWN_INTERVAL * Simulation.SPEED) + 2) * 2 - 1);
+    private static final int MASK = CAPACITY - 1;
+
+    private final int[] worldX = new int[CAPACITY];    // worldX[slot] = scroll offset when spawned + WIDTH
+    private final int[] gap = new int[CAPACITY];       // gap[slot]
+    private final int[] center = new int[CAPACITY];    // center[slot] = gap y center
+
+    // head and tail are pipe sequence numbers; pipe n lives in slot n & MASK
+    private int head, tail;
+    private int column;     // first pipe not yet past the bird's column
+    private int ahead;      // first pipe ahead of the bird
+    private int unscored;   // first pipe the bird has not yet passed
+    private int offset;     // total scroll distance (wraps, only differences are used)
+
+    /**
+     * Removes every pipe.
+     */
+    public void clear() {
+        head = tail = column = ahead = unscored = 0;
+        offset = 0;
+    }
+
+    /**
+     * Adds a pipe pair at the right edge of the screen.
+     *
+     * @param gap height of the gap between the pipes
+     * @param center y position of the gap center
+     */
+    public void spawn(int gap, int center) {
+        if (tail - head == CAPACITY)
+            throw new IllegalStateException("More than " + CAPACITY + " pipes on screen.");
+        int slot = tail++ & MASK;
+        this.worldX[slot] = offset + Simulation.WIDTH;
+        this.gap[slot] = gap;
+        this.center[slot] = center;
+    }
+
+    /**
+     * Moves every pipe left by Simulation.SPEED and removes the pipes that left
+     * the screen.
+     *
+     * @return number of pipes the bird passed this tick
+     */
+    public int scroll() {
+        offset += Simulation.SPEED;
+        while (head < tail && x(head) + Simulation.PIPE_W <= 0) head++;
+        while (column < tail && x(column) + Simulation.PIPE_W <= Simulation.BIRD_X) column++;
+        while (ahead < tail && x(ahead) <= Simulation.BIRD_X) ahead++;
+        int passed = 0;
+        while (unscored < tail && x(unscored) < Simulation.BIRD_X + Simulation.SPEED) {
+            unscored++;
+            passed++;
+        }
+        return passed;
+    }
+
+    /**
+     * Returns the pipe pair overlapping the bird's column, which is the only pipe
+     * the bird can hit.
+     *
+     * @return pipe index, or -1 if there is none
+     */
+    public int getColumnPipe() {
+        if (column < tail && x(column) < Simulation.BIRD_X + Simulation.BIRD_W) return column - head;
+        return -1;
+    }
+
+    /**
+     * Returns the nearest pipe pair that is still ahead of the bird.
+     *
+     * @return pipe index, or -1 if there is none
+     */
+    public int getNextPipe() { return ahead < tail ? ahead - head : -1; }
+
+    public int size() { return tail - head; }
+    public int getX(int pipe) { return x(head + pipe); }
+    public int getGap(int pipe) { return gap[(head + pipe) & MASK]; }
+    public int getCenter(int pipe) { return center[(head + pipe) & MASK]; }
+
+    // screen x of a pipe by sequence number
+    private int x(int n) { return worldX[n & MASK] - offset; }
+}
@@ -0,0 +1,179 @@
+package FlappyBird;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Headless simulation of many birds flying through one shared stream of pipes,
+ * following the same rules as Simulation. Bird state is kept in primitive
+ * arrays (structure of arrays) and every tick updates all birds in one tight
+ * loop, which makes it cheap to evaluate thousands of controllers at once.
+ *
+ * Every bird is at the same x position, so the pipe a bird can hit and the next
+ * pipe ahead are the same for all birds and are found once per tick. The
+ * network inputs of the whole population can be gathered into one row-major
+ * matrix (see gatherInputs) to be evaluated as a single batch.
+ *
+ * @author JAForewit
+ * @see Simulation
+ */
+public class Population {
+    public static final int INPUT_SIZE = Simulation.INPUT_SIZE;
+
+    private final int size;
+    private final Random random;
+    private final int[] y;              // y[bird]
+    private final float[] vy;           // vy[bird]
+    private final boolean[] alive;      // alive[bird]
+    private final int[] ticksAlive;     // ticksAlive[bird]
+    private final int[] score;          // score[bird]
+    private int aliveCount, time, pipesPassed;
+    private final PipeRing pipes = new PipeRing();
+
+    /**
+     * Creates a population of birds.
+     *
+     * @param size number of birds
+     * @param seed seed for the pipe generator
+     */
+    public Population(int size, long seed) {
+        this.size = size;
+        random = new Random(seed);
+        y = new int[size];
+        vy = new float[size];
+        alive = new boolean[size];
+        ticksAlive = new int[size];
+        score = new int[size];
+        reset();
+    }
+
+    /**
+     * Starts a new game with every bird alive. The pipe generator continues where
+     * it left off.
+     */
+    public void reset() {
+        Arrays.fill(y, Simulation.BIRD_START_Y);
+        Arrays.fill(vy, 0);
+        Arrays.fill(alive, true);
+        Arrays.fill(ticksAlive, 0);
+        Arrays.fill(score, 0);
+        aliveCount = size;
+        time = 0;
+        pipesPassed = 0;
+        pipes.clear();
+    }
+
+    /**
+     * Makes a bird jump. Takes effect on the next step.
+     *
+     * @param bird index of the bird
+     */
+    public void jump(int bird) { vy[bird] = Simulation.JUMP_VELOCITY; }
+
+    /**
+     * Makes every living bird whose controller output is at least the threshold
+     * jump.
+     *
+     * @param outputs one controller output per bird
+     * @param threshold output value at which a bird jumps
+     */
+    public void jump(double[] outputs, double threshold) {
+        for (int i = 0; i < size; i++) {
+            if (alive[i] && outputs[i] >= threshold) vy[i] = Simulation.JUMP_VELOCITY;
+        }
+    }
+
+    /**
+     * Advances every living bird by one tick.
+     *
+     * @return number of birds still alive
+     */
+    public int step() {
+        if (aliveCount == 0) return 0;
+
+        // create new pipes
+        if (time % Simulation.SPAWN_INTERVAL == 0) {
+            int gap = (int) (random.nextDouble() * (Simulation.GAP_MAX - Simulation.GAP_MIN) + 1) + Simulation.GAP_MIN;
+            int yCenter = (int) (random.nextDouble() * 2 * Simulation.GAP_CENTER_VARIANCE + 1)
+                    + Simulation.HEIGHT/2 - Simulation.GAP_CENTER_VARIANCE;
+            pipes.spawn(gap, yCenter);
+        }
+
+        // the pipe overlapping the birds' column, if any: birds above top or below bottom hit it
+        int top = Integer.MIN_VALUE, bottom = Integer.MAX_VALUE;
+        int pipe = pipes.getColumnPipe();
+        if (pipe >= 0) {
+            top = pipes.getCenter(pipe) - pipes.getGap(pipe)/2;
+            bottom = pipes.getCenter(pipe) + pipes.getGap(pipe)/2;
+        }
+
+        // bird physics and collisions
+        int living = 0;
+        for (int i = 0; i < size; i++) {
+            if (!alive[i]) continue;
+            int birdY = y[i];
+            boolean hitWall = birdY < 0 || birdY + Simulation.BIRD_H > Simulation.HEIGHT;
+            birdY += vy[i];
+            vy[i] += Simulation.GRAVITY;
+            y[i] = birdY;
+            boolean hitPipe = birdY < top || birdY + Simulation.BIRD_H > bottom;
+            if (hitWall || hitPipe) alive[i] = false;
+            else {
+                ticksAlive[i]++;
+                living++;
+            }
+        }
+
+        // move pipes, remove passed pipes and add to score
+        pipesPassed += pipes.scroll();
+        for (int i = 0; i < size; i++) {
+            if (alive[i]) score[i] = pipesPassed;
+        }
+
+        aliveCount = living;
+        time++;
+        return living;
+    }
+
+    /**
+     * Writes the network inputs of every bird into a row-major matrix, using the
+     * same encoding as Simulation.gatherInputs: bird y/100, bird vy/2, gap/100, gap center/100
+     * and distance to the next pipe/100.
+     *
+     * @param inputs matrix receiving inputs[bird * INPUT_SIZE + input]
+     */
+    public void gatherInputs(double[] inputs) {
+        int distance = Integer.MAX_VALUE, gap = 0, gapY = 0;
+        int next = pipes.getNextPipe();
+        if (next >= 0) {
+            distance = pipes.getX(next) - Simulation.BIRD_X;
+            gap = pipes.getGap(next);
+            gapY = pipes.getCenter(next);
+        }
+        double gapInput = gap/100d, gapYInput = gapY/100d, distanceInput = distance/100d;
+
+        for (int i = 0, row = 0; i < size; i++, row += INPUT_SIZE) {
+            inputs[row] = y[i]/100d;
+            inputs[row + 1] = vy[i]/2d;
+            inputs[row + 2] = gapInput;
+            inputs[row + 3] = gapYInput;
+            inputs[row + 4] = distanceInput;
+        }
+    }
+
+    public int size() { return size; }
+    public int getAliveCount() { return aliveCount; }
+    public int getTime() { return time; }
+    public boolean isAlive(int bird) { return alive[bird]; }
+    public int getBirdY(int bird) { return y[bird]; }
+    public float getBirdVy(int bird) { return vy[bird]; }
+    public int getScore(int bird) { return score[bird]; }
+
+    /**
+     * Returns the distance a bird has flown since the last reset.
+     *
+     * @param bird index of the bird
+     * @return distance in pixels
+     */
+    public int getDistance(int bird) { return ticksAlive[bird] * Simulation.SPEED; }
+}
@@ -0,0 +1,168 @@
+package FlappyBird;
+
+import java.util.Random;
+
+/**
+ * Headless Flappy Bird game logic: bird and pipe physics, pipe spawning,
+ * scoring and collision rules, advanced one fixed timestep at a time with
+ * step(). There is no dependency on AWT or Swing and no real-time clock, so a
+ * game can be simulated as fast as the CPU allows. Pipes are generated from a
+ * seeded Random, so a seed always produces the same pipe sequence.
+ *
+ * +x -> right
+ * -x -> left
+ * +y -> down
+ * -y -> up
+ *
+ * @author JAForewit
+ */
+public class Simulation {
+    public static final int WIDTH = 640, HEIGHT = 480, SPEED = 3, PIPE_W = 50, SPAWN_INTERVAL = 90;
+    public static final int GAP_MAX = 220, GAP_MIN = 150, GAP_CENTER_VARIANCE = 80;
+    public static final int BIRD_X = 110, BIRD_START_Y = HEIGHT/2-70, BIRD_W = 50, BIRD_H = 40;
+    public static final float JUMP_VELOCITY = -8, GRAVITY = 0.5f;
+    public static final int INPUT_SIZE = 5;
+
+    private final Random random;
+    private int time, score;
+    private boolean dead;
+    private int birdY;
+    private float birdVy;
+    private final PipeRing pipes = new PipeRing();
+
+    /**
+     * Creates a new game.
+     *
+     * @param seed seed for the pipe generator
+     */
+    public Simulation(long seed) {
+        random = new Random(seed);
+        reset();
+    }
+
+    /**
+     * Starts a new game. The pipe generator continues where it left off.
+     */
+    public void reset() {
+        birdY = BIRD_START_Y;
+        birdVy = 0;
+        pipes.clear();
+        time = 0;
+        score = 0;
+        dead = false;
+    }
+
+    /**
+     * Starts a new game with a freshly seeded pipe generator, so the game's pipe
+     * sequence depends only on the seed.
+     *
+     * @param seed seed for the pipe generator
+     */
+    public void reset(long seed) {
+        random.setSeed(seed);
+        reset();
+    }
+
+    /**
+     * Makes the bird jump. Takes effect on the next step.
+     */
+    public void jump() { birdVy = JUMP_VELOCITY; }
+
+    /**
+     * Asks a controller whether to jump, then advances the game by one tick. The
+     * decision takes effect in this tick.
+     *
+     * @param controller the player
+     * @return true if the bird is still alive
+     */
+    public boolean step(Controller controller) {
+        if (!dead && controller.jump(this)) jump();
+        return step();
+    }
+
+    /**
+     * Advances the game by one tick. Does nothing once the bird is dead.
+     *
+     * @return true if the bird is still alive
+     */
+    public boolean step() {
+        if (dead) return false;
+
+        // create new pipes
+        if (time % SPAWN_INTERVAL == 0) {
+            int gap = (int) (random.nextDouble() * (GAP_MAX - GAP_MIN) + 1) + GAP_MIN;
+            int yCenter = (int) (random.nextDouble() * 2 * GAP_CENTER_VARIANCE + 1) + HEIGHT/2 - GAP_CENTER_VARIANCE;
+            pipes.spawn(gap, yCenter);
+        }
+
+        // check for collisions with walls
+        if (birdY < 0 || birdY + BIRD_H > HEIGHT) dead = true;
+
+        // bird physics
+        birdY += birdVy;
+        birdVy += GRAVITY;
+
+        // check for collisions with the pipe in the bird's column
+        int pipe = pipes.getColumnPipe();
+        if (pipe >= 0 && hitsPipe(pipes.getGap(pipe), pipes.getCenter(pipe))) dead = true;
+
+        // move pipes, remove passed pipes and add to score
+        score += pipes.scroll();
+
+        time++;
+        return !dead;
+    }
+
+    // true if the bird (inside the pipe's column) overlaps the top or bottom pipe
+    private boolean hitsPipe(int gap, int yCenter) {
+        return birdY < yCenter - gap/2 || birdY + BIRD_H > yCenter + gap/2;
+    }
+
+    /**
+     * Returns the index of the nearest pipe pair that is still ahead of the bird.
+     *
+     * @return pipe index, or -1 if there is none
+     */
+    public int getNextPipe() { return pipes.getNextPipe(); }
+
+    /**
+     * Writes the controller inputs for the current state: bird y/100, bird vy/2,
+     * and the gap/100, gap center/100 and distance/100 of the next pipe.
+     *
+     * @param inputs array receiving INPUT_SIZE values
+     */
+    public void gatherInputs(double[] inputs) {
+        int distance = Integer.MAX_VALUE, gap = 0, gapY = 0;
+        int next = pipes.getNextPipe();
+        if (next >= 0) {
+            distance = pipes.getX(next) - BIRD_X;
+            gap = pipes.getGap(next);
+            gapY = pipes.getCenter(next);
+        }
+
+        inputs[0] = birdY/100d;
+        inputs[1] = birdVy/2d;
+        inputs[2] = gap/100d;
+        inputs[3] = gapY/100d;
+        inputs[4] = distance/100d;
+    }
+
+    public int getPipeCount() { return pipes.size(); }
+    public int getPipeX(int pipe) { return pipes.getX(pipe); }
+    public int getPipeGap(int pipe) { return pipes.getGap(pipe); }
+    public int getPipeCenter(int pipe) { return pipes.getCenter(pipe); }
+
+    public int getBirdX() { return BIRD_X; }
+    public int getBirdY() { return birdY; }
+    public float getBirdVy() { return birdVy; }
+    public int getScore() { return score; }
+    public int getTime() { return time; }
+    public boolean isDead() { return dead; }
+
+    /**
+     * Returns the distance flown since the last reset.
+     *
+     * @return distance in pixels
+     */
+    public int getDistance() { return time * SPEED; }
+}
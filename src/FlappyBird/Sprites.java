@@ -0,0 +1,64 @@
+package FlappyBird;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads every sprite once, from the classpath, and keeps it scaled to the size
+ * it is drawn at in an image compatible with the display. Drawing a sprite is
+ * then a plain copy that Java2D can accelerate, instead of decoding a PNG or
+ * rescaling the source image every frame.
+ *
+ * The pipe image is a thin horizontal slice whose rows are identical, so it is
+ * stretched once into a column the height of the screen, and a pipe of any
+ * height is drawn as the top part of that column.
+ *
+ * @author JAForewit
+ * @see Bird
+ * @see Pipe
+ */
+final class Sprites {
+    private static final Logger LOGGER = Logger.getLogger( Sprites.class.getName() );
+
+    static final Image BIRD = load("bird.png", Simulation.BIRD_W, Simulation.BIRD_H);
+    static final Image PIPE = load("pipe.png", Simulation.PIPE_W, Simulation.HEIGHT);
+
+    private Sprites() {}
+
+    // reads an image next to this class and scales it into a compatible image
+    private static Image load(String name, int width, int height) {
+        URL url = Sprites.class.getResource(name);
+        if (url == null) {
+            LOGGER.log(Level.SEVERE, "Could not find " + name + " on the classpath.");
+            return null;
+        }
+
+        BufferedImage source;
+        try { source = ImageIO.read(url); }
+        catch(IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not load " + name + ".");
+            e.printStackTrace();
+            return null;
+        }
+
+        BufferedImage image = createImage(width, height, source.getColorModel().getTransparency());
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        return image;
+    }
+
+    // an image in the display's pixel format, or a plain ARGB image without a display
+    private static BufferedImage createImage(int width, int height, int transparency) {
+        if (GraphicsEnvironment.isHeadless()) return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height, transparency);
+    }
+}
@@ -1,9 +1,9 @@
 
+import Evolution.*;
 import FlappyBird.*;
 import Network.*;
 import OrganicNN.*;
 import TrainSet.*;
-import java.util.ArrayList;
 
 public class Main {
     public static void main(String[] args) {
@@ -11,17 +11,51 @@ public class Main {
         GamePanel game = new GamePanel();
         game.start();
 
+        // -Dmetrics=true logs tick, render and inference latencies every 10 seconds
+        if (Boolean.getBoolean("metrics")) game.getMetrics().startLogging(10);
+
+        // record every game so its data can be regenerated later (see Replay.ReplayEngine)
+        try { game.record("session.replay"); }
+        catch(Exception e) { e.printStackTrace(); }
+
+        // "evolve" skips data capture and evolves an ANN in headless games instead
+        if (args.length > 0 && args[0].equals("evolve")) {
+            System.out.println("evolving network... please wait");
+            NeuroEvolution evolution = new NeuroEvolution(200, 3, System.nanoTime(),
+                    Runtime.getRuntime().availableProcessors(), 5, 4, 1);
+            evolution.evolve(100);
+            evolution.shutdown();
+            System.out.println("finished evolution, best distance: " + evolution.getBestFitness());
+            game.loadANN(evolution.getBestNetwork());
+            return;
+        }
+
+        // "online" keeps training an ANN on the player's moves while the game runs;
+        // press ALT at any time to let the latest version play
+        if (args.length > 0 && args[0].equals("online")) {
+            game.learn(new OnlineTrainer(new Network(5, 4, 1), 20000, 50, 0.3, 1000, System.nanoTime()));
+            System.out.println("learning from your play... press ALT to let the AI play");
+            return;
+        }
+
+        // stream captured data to disk, trimming 100 samples from each end
+        try { game.capture("gameplay.tset", 100); }
+        catch(Exception e) { e.printStackTrace(); }
+
         // wait until training data is captured
         System.out.println("starting data capture...");
         System.out.println("press ENTER to begin training");
         try { System.in.read(); }
         catch(Exception e) { e.printStackTrace(); }
 
-        // get captured game data and store in a TrainSet
-        System.out.println("finished data capture...");
-        ArrayList<double[][]> gameData = game.getDataSet(100);
-        TrainSet trainingSet = new TrainSet(gameData.get(0)[0].length, gameData.get(0)[1].length);
-        for (double[][] data : gameData) trainingSet.addData(data[0], data[1]);
+        // the captured data file doubles as the TrainSet (and can be trained on again later)
+        System.out.println("finished data capture: " + game.stopCapture() + " samples");
+        TrainSet trainingSet;
+        try { trainingSet = TrainSetFile.open("gameplay.tset"); }
+        catch(Exception e) {
+            e.printStackTrace();
+            return;
+        }
 
         // create an ONN and train it using the collected data
         OrganicNN net = new OrganicNN("net.structure"); // 5 4 1
@@ -0,0 +1,122 @@
+package Metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Latency histograms and missed deadline counters for a running game: the
+ * simulation tick, drawing a frame, capturing a training sample, and a
+ * network's calculateOutput. Registered as an MBean (FlappyBird:type=GameMetrics)
+ * so it can be watched from jconsole or VisualVM, and optionally logged
+ * periodically.
+ *
+ * A game runs at 60 frames a second, so every latency should stay well inside
+ * its 16 ms frame budget.
+ *
+ * @author JAForewit
+ * @see LatencyHistogram
+ */
+public class GameMetrics implements GameMetricsMBean {
+    private static final Logger LOGGER = Logger.getLogger( GameMetrics.class.getName() );
+    private static final String NAME = "FlappyBird:type=GameMetrics";
+
+    public final LatencyHistogram tick = new LatencyHistogram();
+    public final LatencyHistogram render = new LatencyHistogram();
+    public final LatencyHistogram capture = new LatencyHistogram();
+    public final LatencyHistogram inference = new LatencyHistogram();
+    private final AtomicLong missedTicks = new AtomicLong();
+    private final AtomicLong missedFrames = new AtomicLong();
+    private ScheduledExecutorService logger;
+
+    public void missedTicks(long count) { missedTicks.addAndGet(count); }
+    public void missedFrames(long count) { missedFrames.addAndGet(count); }
+
+    /**
+     * Registers these metrics with the platform MBean server, replacing any
+     * metrics registered before.
+     */
+    public void register() {
+        try {
+            ObjectName name = new ObjectName(NAME);
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name))
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        }
+        catch(JMException e) {
+            LOGGER.log(Level.SEVERE, "Could not register the game metrics MBean.");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Logs report() at a fixed period from a background thread.
+     *
+     * @param seconds time between log lines
+     */
+    public synchronized void startLogging(long seconds) {
+        if (logger != null) logger.shutdown();
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "GameMetrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(() -> LOGGER.log(Level.INFO, report()), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopLogging() {
+        if (logger != null) logger.shutdown();
+        logger = null;
+    }
+
+    @Override public double getTickP50() { return ms(tick.getPercentile(50)); }
+    @Override public double getTickP99() { return ms(tick.getPercentile(99)); }
+    @Override public double getTickP999() { return ms(tick.getPercentile(99.9)); }
+    @Override public double getTickMax() { return ms(tick.getMax()); }
+    @Override public double getRenderP50() { return ms(render.getPercentile(50)); }
+    @Override public double getRenderP99() { return ms(render.getPercentile(99)); }
+    @Override public double getRenderP999() { return ms(render.getPercentile(99.9)); }
+    @Override public double getRenderMax() { return ms(render.getMax()); }
+    @Override public double getCaptureP50() { return ms(capture.getPercentile(50)); }
+    @Override public double getCaptureP99() { return ms(capture.getPercentile(99)); }
+    @Override public double getCaptureP999() { return ms(capture.getPercentile(99.9)); }
+    @Override public double getCaptureMax() { return ms(capture.getMax()); }
+    @Override public double getInferenceP50() { return ms(inference.getPercentile(50)); }
+    @Override public double getInferenceP99() { return ms(inference.getPercentile(99)); }
+    @Override public double getInferenceP999() { return ms(inference.getPercentile(99.9)); }
+    @Override public double getInferenceMax() { return ms(inference.getMax()); }
+    @Override public long getTicks() { return tick.getCount(); }
+    @Override public long getFrames() { return render.getCount(); }
+    @Override public long getMissedTicks() { return missedTicks.get(); }
+    @Override public long getMissedFrames() { return missedFrames.get(); }
+
+    @Override
+    public String report() {
+        return line("tick", tick) + ", " + line("render", render) + ", " + line("capture", capture) + ", "
+                + line("inference", inference) + ", missed ticks " + getMissedTicks()
+                + ", missed frames " + getMissedFrames();
+    }
+
+    @Override
+    public void reset() {
+        tick.reset();
+        render.reset();
+        capture.reset();
+        inference.reset();
+        missedTicks.set(0);
+        missedFrames.set(0);
+    }
+
+    private static String line(String name, LatencyHistogram histogram) {
+        return String.format("%s p50/p99/p99.9 %.3f/%.3f/%.3f ms", name, ms(histogram.getPercentile(50)),
+                ms(histogram.getPercentile(99)), ms(histogram.getPercentile(99.9)));
+    }
+
+    private static double ms(long nanos) { return nanos / 1e6; }
+}
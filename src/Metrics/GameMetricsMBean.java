@@ -0,0 +1,42 @@
+package Metrics;
+
+/**
+ * The JMX view of GameMetrics. Latencies are in milliseconds.
+ *
+ * @author JAForewit
+ * @see GameMetrics
+ */
+public interface GameMetricsMBean {
+    double getTickP50();
+    double getTickP99();
+    double getTickP999();
+    double getTickMax();
+    double getRenderP50();
+    double getRenderP99();
+    double getRenderP999();
+    double getRenderMax();
+    double getCaptureP50();
+    double getCaptureP99();
+    double getCaptureP999();
+    double getCaptureMax();
+    double getInferenceP50();
+    double getInferenceP99();
+    double getInferenceP999();
+    double getInferenceMax();
+    long getTicks();
+    long getFrames();
+    long getMissedTicks();
+    long getMissedFrames();
+
+    /**
+     * Returns one line with the percentiles of every latency and the missed counts.
+     *
+     * @return the report
+     */
+    String report();
+
+    /**
+     * Clears every histogram and counter.
+     */
+    void reset();
+}
@@ -0,0 +1,91 @@
+package Metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size histogram of latencies in nanoseconds. Buckets are log-linear:
+ * values below 64 ns get a bucket each, and every power of two above that is
+ * split into 32 buckets, so any recorded value is known to within about 3%.
+ * All buckets are allocated up front, and recording is a few arithmetic
+ * operations and one array write, so measuring never allocates.
+ *
+ * A histogram is written by one thread; any thread may read it.
+ *
+ * @author JAForewit
+ * @see GameMetrics
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;                  // buckets per power of two
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private volatile long max;
+
+    /**
+     * Records one latency. Only the owning thread may call this.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int index = index(nanos);
+        counts.lazySet(index, counts.get(index) + 1);
+        if (nanos > max) max = nanos;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return count
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += counts.get(i);
+        return count;
+    }
+
+    public long getMax() { return max; }
+
+    /**
+     * Returns the value at a percentile of the recorded values.
+     *
+     * @param percentile between 0 and 100
+     * @return the latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(value(i), max);
+        }
+        return max;
+    }
+
+    /**
+     * Clears every bucket.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        max = 0;
+    }
+
+    // bucket of a value
+    static int index(long value) {
+        if (value < 2 * SUB_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return shift * SUB_COUNT + (int) (value >>> shift);
+    }
+
+    // middle of the values in a bucket
+    static long value(int index) {
+        if (index < 2 * SUB_COUNT) return index;
+        int shift = index / SUB_COUNT - 1;
+        long mantissa = index % SUB_COUNT + SUB_COUNT;
+        return (mantissa << shift) + (1L << shift) / 2;
+    }
+}
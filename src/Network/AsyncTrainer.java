@@ -0,0 +1,88 @@
+package Network;
+
+import TrainSet.TrainSet;
+
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Trains a Network or FloatNetwork with lock-free asynchronous stochastic
+ * gradient descent (Hogwild). Several threads draw their own random batches
+ * from the same TrainSet, each computes gradients in a private Workspace and
+ * applies them straight to the shared weights and biases without any locking
+ * or reduction.
+ *
+ * Updates are plain (relaxed) writes to the primitive weight arrays, so threads
+ * can overwrite each other's updates. For small networks where every update is
+ * cheap this costs far less than synchronising, at the price of a noisier
+ * descent and results that are not reproducible. Use ParallelTrainer when
+ * determinism matters.
+ *
+ * @author JAForewit
+ * @version 1.0, 02/08/2018
+ * @see ParallelTrainer
+ */
+public class AsyncTrainer {
+    private static final Logger LOGGER = Logger.getLogger( AsyncTrainer.class.getName() );
+
+    private final LayeredNetwork network;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * Creates an asynchronous trainer.
+     *
+     * @param network the network to train
+     * @param threads number of training threads
+     * @param seed base seed, thread i samples with seed + i
+     */
+    public AsyncTrainer(NeuralNetwork network, int threads, long seed) {
+        this.network = LayeredNetwork.of(network);
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+    }
+
+    /**
+     * Trains the network like Network.train(), with the loops shared out between
+     * the threads. Returns once every thread has finished.
+     *
+     * @param set the TrainSet object which holds all input and target data for training
+     * @param loops the total number of batches, split between the threads
+     * @param batchSize the number of samples in each batch
+     * @param rate learning rate (eta)
+     */
+    public void train(TrainSet set, int loops, int batchSize, double rate) {
+        if (set.getINPUT_SIZE() != network.INPUT_SIZE || set.getTARGET_SIZE() != network.OUTPUT_SIZE) {
+            LOGGER.log(Level.SEVERE, "Passed a TrainSet with an invalid input and target size to train()."
+                    + " Expected inputs[" + network.INPUT_SIZE + "], targets[" + network.OUTPUT_SIZE + "].");
+            return;
+        }
+        if (set.size() == 0 || batchSize <= 0) return;
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int workerLoops = (int) ((long) (t + 1) * loops / threads - (long) t * loops / threads);
+            Random random = new Random(seed + t);
+            workers[t] = new Thread(() -> {
+                Workspace ws = network.newWorkspace(batchSize);
+                for (int i = 0; i < workerLoops; i++) {
+                    for (int j = 0; j < batchSize; j++) ws.load(set, random.nextInt(set.size()), j);
+                    network.forward(ws, batchSize);
+                    network.backward(ws, batchSize);
+                    network.applyGradients(ws, rate / batchSize);
+                }
+            }, "AsyncTrainer-" + t);
+            workers[t].start();
+        }
+
+        try {
+            for (Thread worker : workers) worker.join();
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.WARNING, "Interrupted while waiting for training threads.");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getThreads() { return threads; }
+}
@@ -0,0 +1,51 @@
+package Network;
+
+import TrainSet.Batch;
+import TrainSet.TrainSet;
+
+/**
+ * Double precision workspace, used by Network.
+ */
+final class DoubleWorkspace extends Workspace {
+    final double[][] output;            //output[layer][sample * size + neuron]
+    final double[][] outputDerivative;  //outputDerivative[layer][sample * size + neuron]
+    final double[][] errors;            //errors[layer][sample * size + neuron]
+    final double[] target;              //target[sample * OUTPUT_SIZE + neuron]
+    final double[][] weightGradient;    //weightGradient[layer][neuron * prevSize + prevNeuron]
+    final double[][] biasGradient;      //biasGradient[layer][neuron]
+
+    DoubleWorkspace(int[] layerSizes, int capacity) {
+        super(layerSizes, capacity);
+        int networkSize = layerSizes.length;
+        output = new double[networkSize][];
+        outputDerivative = new double[networkSize][];
+        errors = new double[networkSize][];
+        weightGradient = new double[networkSize][];
+        biasGradient = new double[networkSize][];
+        target = new double[capacity * layerSizes[networkSize - 1]];
+
+        output[0] = new double[capacity * layerSizes[0]];
+        for (int layer = 1; layer < networkSize; layer++) {
+            output[layer] = new double[capacity * layerSizes[layer]];
+            outputDerivative[layer] = new double[capacity * layerSizes[layer]];
+            errors[layer] = new double[capacity * layerSizes[layer]];
+            weightGradient[layer] = new double[layerSizes[layer] * layerSizes[layer - 1]];
+            biasGradient[layer] = new double[layerSizes[layer]];
+        }
+    }
+
+    void load(TrainSet set, int index, int slot) {
+        set.getInput(index, output[0], slot * inputSize);
+        set.getTarget(index, target, slot * targetSize);
+    }
+
+    void load(Batch batch, int index, int slot) {
+        batch.getInput(index, output[0], slot * inputSize);
+        batch.getTarget(index, target, slot * targetSize);
+    }
+
+    void load(double[] inputs, int inputOffset, double[] targets, int targetOffset, int slot) {
+        System.arraycopy(inputs, inputOffset, output[0], slot * inputSize, inputSize);
+        System.arraycopy(targets, targetOffset, target, slot * targetSize, targetSize);
+    }
+}
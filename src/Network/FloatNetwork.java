@@ -0,0 +1,301 @@
+package Network;
+
+import Activation.Activation;
+import TrainSet.Precision;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single precision version of Network. Weights, biases, activations and
+ * gradients are stored as floats, which halves the memory traffic of the
+ * forward and backward passes. Both implement NeuralNetwork: inputs, targets
+ * and parameters are passed as doubles and converted on the way in and out,
+ * so a FloatNetwork can be used wherever a Network can (trainers, controllers,
+ * model files). Create either with NeuralNetwork.create(precision, layers).
+ *
+ * Activation functions are evaluated in double precision and rounded to float.
+ *
+ * @see Network
+ * @see NeuralNetwork
+ */
+public class FloatNetwork extends LayeredNetwork {
+    private static final Logger LOGGER = Logger.getLogger( FloatNetwork.class.getName() );
+
+    public final float MIN_BIAS = -0.7f;
+    public final float MAX_BIAS = 0.7f;
+    public final float MIN_WEIGHT = -1;
+    public final float MAX_WEIGHT = 1;
+
+        private float[][] bias;                 //bias[layer][neuron]
+        private float[][] weights;              //weights[layer][neuron * prevLayerSize + prevNeuron]
+        private final double[] output;          //last single output as doubles
+
+
+    public FloatNetwork(int... layers) {
+        super(layers);
+
+        bias = new float[NETWORK_SIZE][];
+        weights = new float[NETWORK_SIZE][];
+
+        for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+
+            bias[layer] = createRandomArray(LAYER_SIZES[layer], MIN_BIAS, MAX_BIAS);
+
+            weights[layer] = createRandomArray(LAYER_SIZES[layer] * LAYER_SIZES[layer - 1],
+                    MIN_WEIGHT, MAX_WEIGHT);
+        }
+
+        output = new double[OUTPUT_SIZE];
+    }
+
+    public Precision getPrecision() { return Precision.FLOAT; }
+
+    //Returns a new network with the same layers, activations, weights and biases
+    public FloatNetwork copy() {
+        FloatNetwork net = new FloatNetwork(LAYER_SIZES.clone());
+        for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+            System.arraycopy(bias[layer], 0, net.bias[layer], 0, bias[layer].length);
+            System.arraycopy(weights[layer], 0, net.weights[layer], 0, weights[layer].length);
+            net.activation[layer] = activation[layer];
+        }
+        return net;
+    }
+
+    //Loads a network saved with save(), rounding a Network's parameters to floats
+    public static FloatNetwork load(String filename) throws IOException {
+        return (FloatNetwork) NetworkFile.load(filename, Precision.FLOAT);
+    }
+
+    //Returns the number of weights and biases in the network
+    public int getParameterCount() {
+        int count = 0;
+        for (int layer = 1; layer < NETWORK_SIZE; layer++) count += weights[layer].length + bias[layer].length;
+        return count;
+    }
+
+    //Copies every weight and bias into a flat array: for each layer, its weights then its biases
+    public void getParameters(double[] parameters) {
+        int index = 0;
+        for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+            for (float w : weights[layer]) parameters[index++] = w;
+            for (float b : bias[layer]) parameters[index++] = b;
+        }
+    }
+
+    //Sets every weight and bias from a flat array laid out like getParameters(), rounded to floats
+    public void setParameters(double[] parameters) {
+        if (parameters.length != getParameterCount()) {
+            LOGGER.log(Level.SEVERE, "Passed an invalid parameter count to setParameters()."
+                    + " Expected parameters[" + getParameterCount() + "].");
+            return;
+        }
+        int index = 0;
+        for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+            float[] w = weights[layer], b = bias[layer];
+            for (int i = 0; i < w.length; i++) w[i] = (float) parameters[index++];
+            for (int i = 0; i < b.length; i++) b[i] = (float) parameters[index++];
+        }
+    }
+
+    public double[] calculateOutput(double... input) {
+        if (input.length != INPUT_SIZE) return null;
+        FloatWorkspace ws = (FloatWorkspace) single;
+        for (int i = 0; i < INPUT_SIZE; i++) ws.output[0][i] = (float) input[i];
+        infer(ws.output, 1);
+        return getLastOutput();
+    }
+
+    public double[] getLastOutput () {
+        float[] out = ((FloatWorkspace) single).output[NETWORK_SIZE-1];
+        for (int i = 0; i < OUTPUT_SIZE; i++) output[i] = out[i];
+        return output;
+    }
+
+
+        Workspace newWorkspace(int capacity) {
+            return new FloatWorkspace(LAYER_SIZES, capacity);
+        }
+
+        void infer (InferenceContext context, int count) {
+            infer(context.floatActivations, count);
+        }
+
+        //Feeds count samples through the network for inference only
+        private void infer (float[][] activations, int count) {
+            for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+                Activation function = activation[layer];
+                int size = LAYER_SIZES[layer];
+                int prevSize = LAYER_SIZES[layer - 1];
+                float[] w = weights[layer];
+                float[] b = bias[layer];
+                float[] in = activations[layer - 1];
+                float[] out = activations[layer];
+
+                for (int neuron = 0; neuron < size; neuron++) {
+                    int row = neuron * prevSize;
+                    for (int sample = 0; sample < count; sample++) {
+                        int inRow = sample * prevSize;
+                        float sum = b[neuron];
+
+                        for (int prevNeuron = 0; prevNeuron < prevSize; prevNeuron++) {
+                            sum += in[inRow + prevNeuron] * w[row + prevNeuron];
+                        }
+
+                        out[sample * size + neuron] = (float) function.apply(sum);
+                    }
+                }
+            }
+        }
+
+        //Feeds the first count samples of ws.output[0] through the network
+        void forward (Workspace workspace, int count) {
+            FloatWorkspace ws = (FloatWorkspace) workspace;
+            for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+                Activation function = activation[layer];
+                int size = LAYER_SIZES[layer];
+                int prevSize = LAYER_SIZES[layer - 1];
+                float[] w = weights[layer];
+                float[] b = bias[layer];
+                float[] in = ws.output[layer - 1];
+                float[] out = ws.output[layer];
+                float[] derivative = ws.outputDerivative[layer];
+
+                for (int sample = 0; sample < count; sample++) {
+                    int inRow = sample * prevSize;
+                    int outRow = sample * size;
+                    for (int neuron = 0; neuron < size; neuron++) {
+
+                        float sum = b[neuron];
+                        int row = neuron * prevSize;
+
+                        for (int prevNeuron = 0; prevNeuron < prevSize; prevNeuron++) {
+                            sum += in[inRow + prevNeuron] * w[row + prevNeuron];
+                        }
+
+                        float value = (float) function.apply(sum);
+                        out[outRow + neuron] = value;
+
+                        //Sets up the derivative used in the backpropogation algorithm
+                        derivative[outRow + neuron] = (float) function.derivative(value);
+                    }
+                }
+            }
+        }
+
+        //Calculates the errors of the first count samples against ws.target and
+        //stores the summed weight and bias gradients in ws
+        void backward (Workspace workspace, int count) {
+            FloatWorkspace ws = (FloatWorkspace) workspace;
+
+            //Calculate error for output layer
+            int last = NETWORK_SIZE - 1;
+            float[] out = ws.output[last];
+            float[] derivative = ws.outputDerivative[last];
+            float[] err = ws.errors[last];
+            for (int i = 0; i < count * OUTPUT_SIZE; i++) {
+                err[i] = (out[i] - ws.target[i]) * derivative[i];
+            }
+
+            //Calculate error for hidden neurons
+            for (int layer = NETWORK_SIZE - 2; layer > 0; layer --) {
+                int size = LAYER_SIZES[layer];
+                int nextSize = LAYER_SIZES[layer + 1];
+                float[] w = weights[layer + 1];
+                float[] nextErr = ws.errors[layer + 1];
+                err = ws.errors[layer];
+                derivative = ws.outputDerivative[layer];
+
+                for (int sample = 0; sample < count; sample++) {
+                    int row = sample * size;
+                    for (int neuron = 0; neuron < size; neuron++) err[row + neuron] = 0;
+
+                    for (int nextNeuron = 0; nextNeuron < nextSize; nextNeuron++) {
+                        float e = nextErr[sample * nextSize + nextNeuron];
+                        int wRow = nextNeuron * size;
+                        for (int neuron = 0; neuron < size; neuron++) {
+                            err[row + neuron] += w[wRow + neuron] * e;
+                        }
+                    }
+
+                    for (int neuron = 0; neuron < size; neuron++) err[row + neuron] *= derivative[row + neuron];
+                }
+            }
+
+            //Sum the gradients over the batch
+            for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+                int size = LAYER_SIZES[layer];
+                int prevSize = LAYER_SIZES[layer - 1];
+                float[] gw = ws.weightGradient[layer];
+                float[] gb = ws.biasGradient[layer];
+                float[] in = ws.output[layer - 1];
+                err = ws.errors[layer];
+                Arrays.fill(gw, 0);
+                Arrays.fill(gb, 0);
+
+                for (int sample = 0; sample < count; sample++) {
+                    int inRow = sample * prevSize;
+                    for (int neuron = 0; neuron < size; neuron++) {
+                        float e = err[sample * size + neuron];
+                        gb[neuron] += e;
+                        int row = neuron * prevSize;
+                        for (int prevNeuron = 0; prevNeuron < prevSize; prevNeuron++) {
+                            gw[row + prevNeuron] += e * in[inRow + prevNeuron];
+                        }
+                    }
+                }
+            }
+        }
+
+        //Takes one gradient descent step of the given size
+        void applyGradients (Workspace workspace, double step) {
+            FloatWorkspace ws = (FloatWorkspace) workspace;
+            float rate = (float) step;
+            for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+                float[] b = bias[layer];
+                float[] gb = ws.biasGradient[layer];
+                for (int neuron = 0; neuron < b.length; neuron++) b[neuron] -= rate * gb[neuron];
+
+                float[] w = weights[layer];
+                float[] gw = ws.weightGradient[layer];
+                for (int i = 0; i < w.length; i++) w[i] -= rate * gw[i];
+            }
+        }
+
+        //Sums the gradients of several workspaces (in order) and takes one step of
+        //the given size, only touching the part-th of partCount slices of each layer
+        void applyGradients (Workspace[] parts, double step, int part, int partCount) {
+            float rate = (float) step;
+            for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+                float[] b = bias[layer];
+                int from = (int) ((long) part * b.length / partCount);
+                int to = (int) ((long) (part + 1) * b.length / partCount);
+                for (int neuron = from; neuron < to; neuron++) {
+                    float sum = 0;
+                    for (Workspace ws : parts) sum += ((FloatWorkspace) ws).biasGradient[layer][neuron];
+                    b[neuron] -= rate * sum;
+                }
+
+                float[] w = weights[layer];
+                from = (int) ((long) part * w.length / partCount);
+                to = (int) ((long) (part + 1) * w.length / partCount);
+                for (int i = from; i < to; i++) {
+                    float sum = 0;
+                    for (Workspace ws : parts) sum += ((FloatWorkspace) ws).weightGradient[layer][i];
+                    w[i] -= rate * sum;
+                }
+            }
+        }
+
+        private static float[] createRandomArray (int size, float min, float max) {
+            float[] array = new float[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = (float) (Math.random() * (max - min)) + min;
+            }
+
+            return array;
+        }
+
+}
@@ -0,0 +1,51 @@
+package Network;
+
+import TrainSet.Batch;
+import TrainSet.TrainSet;
+
+/**
+ * Single precision workspace, used by FloatNetwork.
+ */
+final class FloatWorkspace extends Workspace {
+    final float[][] output;             //output[layer][sample * size + neuron]
+    final float[][] outputDerivative;   //outputDerivative[layer][sample * size + neuron]
+    final float[][] errors;             //errors[layer][sample * size + neuron]
+    final float[] target;               //target[sample * OUTPUT_SIZE + neuron]
+    final float[][] weightGradient;     //weightGradient[layer][neuron * prevSize + prevNeuron]
+    final float[][] biasGradient;       //biasGradient[layer][neuron]
+
+    FloatWorkspace(int[] layerSizes, int capacity) {
+        super(layerSizes, capacity);
+        int networkSize = layerSizes.length;
+        output = new float[networkSize][];
+        outputDerivative = new float[networkSize][];
+        errors = new float[networkSize][];
+        weightGradient = new float[networkSize][];
+        biasGradient = new float[networkSize][];
+        target = new float[capacity * layerSizes[networkSize - 1]];
+
+        output[0] = new float[capacity * layerSizes[0]];
+        for (int layer = 1; layer < networkSize; layer++) {
+            output[layer] = new float[capacity * layerSizes[layer]];
+            outputDerivative[layer] = new float[capacity * layerSizes[layer]];
+            errors[layer] = new float[capacity * layerSizes[layer]];
+            weightGradient[layer] = new float[layerSizes[layer] * layerSizes[layer - 1]];
+            biasGradient[layer] = new float[layerSizes[layer]];
+        }
+    }
+
+    void load(TrainSet set, int index, int slot) {
+        set.getInput(index, output[0], slot * inputSize);
+        set.getTarget(index, target, slot * targetSize);
+    }
+
+    void load(Batch batch, int index, int slot) {
+        batch.getInput(index, output[0], slot * inputSize);
+        batch.getTarget(index, target, slot * targetSize);
+    }
+
+    void load(double[] inputs, int inputOffset, double[] targets, int targetOffset, int slot) {
+        for (int i = 0; i < inputSize; i++) output[0][slot * inputSize + i] = (float) inputs[inputOffset + i];
+        for (int i = 0; i < targetSize; i++) target[slot * targetSize + i] = (float) targets[targetOffset + i];
+    }
+}
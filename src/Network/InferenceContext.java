@@ -0,0 +1,121 @@
+package Network;
+
+import TrainSet.Precision;
+
+import java.util.Arrays;
+
+/**
+ * Caller owned scratch space for evaluating a network without touching any of
+ * the network's own buffers. A context belongs to one thread at a time; any
+ * number of threads can evaluate the same network concurrently as long as each
+ * uses its own context and nothing trains the network meanwhile.
+ *
+ * A context only depends on the layer sizes and precision of the network it
+ * was created for, so it can be used with any network of the same shape (for
+ * example every copy of a network).
+ *
+ * Buffers grow to the largest batch evaluated and are reused afterwards, so a
+ * context does not allocate in steady state.
+ *
+ * @see NeuralNetwork#calculateOutput(InferenceContext, double...)
+ * @see NeuralNetwork#calculateOutputs(InferenceContext, double[][])
+ */
+public final class InferenceContext {
+    final int[] layerSizes;
+    final Precision precision;
+    int capacity;                   //number of samples the buffers can hold
+    double[][] activations;         //activations[layer][sample * size + neuron], DOUBLE only
+    float[][] floatActivations;     //activations[layer][sample * size + neuron], FLOAT only
+    double[] output;                //output of the last single input
+    double[][] rows;                //output rows, grown to the largest batch
+    double[][][] views;             //views[count] holds the first count rows, made once per count
+
+    public InferenceContext(NeuralNetwork network) {
+        layerSizes = network.getLAYER_SIZES().clone();
+        precision = network.getPrecision();
+        output = new double[layerSizes[layerSizes.length - 1]];
+        rows = new double[0][];
+        views = new double[1][][];
+        ensureCapacity(1);
+    }
+
+    //true if the context can evaluate a network with these layer sizes and precision
+    boolean fits(int[] sizes, Precision precision) {
+        return this.precision == precision && Arrays.equals(layerSizes, sizes);
+    }
+
+    //grows the activation buffers to hold at least count samples
+    void ensureCapacity(int count) {
+        if (count <= capacity) return;
+        capacity = count;
+        if (precision == Precision.FLOAT) {
+            floatActivations = new float[layerSizes.length][];
+            for (int layer = 0; layer < layerSizes.length; layer++)
+                floatActivations[layer] = new float[capacity * layerSizes[layer]];
+        } else {
+            activations = new double[layerSizes.length][];
+            for (int layer = 0; layer < layerSizes.length; layer++)
+                activations[layer] = new double[capacity * layerSizes[layer]];
+        }
+    }
+
+    //copies count input rows from a row-major matrix into the input layer
+    void setInputs(double[] inputs, int count) {
+        int size = count * layerSizes[0];
+        if (precision == Precision.FLOAT) {
+            float[] in = floatActivations[0];
+            for (int i = 0; i < size; i++) in[i] = (float) inputs[i];
+        } else {
+            System.arraycopy(inputs, 0, activations[0], 0, size);
+        }
+    }
+
+    //copies one input row into the input layer
+    void setInput(int sample, double[] input) {
+        int size = layerSizes[0];
+        if (precision == Precision.FLOAT) {
+            float[] in = floatActivations[0];
+            for (int i = 0; i < size; i++) in[sample * size + i] = (float) input[i];
+        } else {
+            System.arraycopy(input, 0, activations[0], sample * size, size);
+        }
+    }
+
+    //copies count output rows of the output layer into a row-major matrix
+    void getOutputs(double[] outputs, int count) {
+        int last = layerSizes.length - 1;
+        int size = count * layerSizes[last];
+        if (precision == Precision.FLOAT) {
+            float[] out = floatActivations[last];
+            for (int i = 0; i < size; i++) outputs[i] = out[i];
+        } else {
+            System.arraycopy(activations[last], 0, outputs, 0, size);
+        }
+    }
+
+    //copies one output row of the output layer
+    void getOutput(int sample, double[] output) {
+        int last = layerSizes.length - 1;
+        int size = layerSizes[last];
+        if (precision == Precision.FLOAT) {
+            float[] out = floatActivations[last];
+            for (int i = 0; i < size; i++) output[i] = out[sample * size + i];
+        } else {
+            System.arraycopy(activations[last], sample * size, output, 0, size);
+        }
+    }
+
+    //returns count output rows. The rows only grow, and the array holding them is
+    //made once per batch size, so changing batch sizes does not allocate either
+    double[][] outputRows(int count) {
+        if (count > rows.length) {
+            int size = layerSizes[layerSizes.length - 1];
+            double[][] grown = Arrays.copyOf(rows, count);
+            for (int i = rows.length; i < count; i++) grown[i] = new double[size];
+            rows = grown;
+            views = new double[count + 1][][];
+        }
+        if (views[count] == null) views[count] = Arrays.copyOf(rows, count);
+        return views[count];
+    }
+}
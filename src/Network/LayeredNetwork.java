@@ -0,0 +1,208 @@
+package Network;
+
+import Activation.Activation;
+import TrainSet.Batch;
+import TrainSet.TrainSet;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * What Network and FloatNetwork have in common: the layer sizes, activations,
+ * argument checking, inference contexts and the training loops. Each engine
+ * supplies the passes over its own weights (infer, forward, backward and
+ * applyGradients) in its own precision, and the workspaces they run in. The
+ * trainers in this package drive those passes through this class, so they
+ * work with either precision.
+ */
+abstract class LayeredNetwork implements NeuralNetwork {
+    private static final Logger LOGGER = Logger.getLogger( LayeredNetwork.class.getName() );
+
+    public final int INPUT_SIZE;
+    public final int OUTPUT_SIZE;
+    public final int[] LAYER_SIZES;
+    public final int NETWORK_SIZE;
+
+        Activation[] activation;                //activation[layer]
+        final Workspace single;                 //buffers for a single sample
+        private Workspace batch;                //buffers for a mini-batch, grown on demand
+
+    //Inference contexts of each thread for calculateOutputs(double[][]), shared by
+    //every network of the same shape, so their output rows are too
+    private static final ThreadLocal<LocalContext> LOCAL_CONTEXT = ThreadLocal.withInitial(LocalContext::new);
+
+
+    LayeredNetwork(int... layers) {
+        LAYER_SIZES = layers;
+        NETWORK_SIZE = LAYER_SIZES.length;
+        INPUT_SIZE = LAYER_SIZES[0];
+        OUTPUT_SIZE = LAYER_SIZES[NETWORK_SIZE - 1];
+
+        activation = new Activation[NETWORK_SIZE];
+        for (int layer = 1; layer < NETWORK_SIZE; layer++) activation[layer] = Activation.SIGMOID;
+        single = newWorkspace(1);
+    }
+
+    //Returns the engine behind a network, for the trainers
+    static LayeredNetwork of(NeuralNetwork network) {
+        if (!(network instanceof LayeredNetwork))
+            throw new IllegalArgumentException("Only Network and FloatNetwork can be trained, not "
+                    + network.getClass().getName() + ".");
+        return (LayeredNetwork) network;
+    }
+
+    public int getINPUT_SIZE() { return INPUT_SIZE; }
+    public int getOUTPUT_SIZE() { return OUTPUT_SIZE; }
+    public int[] getLAYER_SIZES() { return LAYER_SIZES; }
+
+    public void save(String filename) throws IOException {
+        NetworkFile.save(filename, this);
+    }
+
+    public void setActivation(Activation function) {
+        for (int layer = 1; layer < NETWORK_SIZE; layer++) activation[layer] = function;
+    }
+
+    public void setActivation(int layer, Activation function) {
+        if (layer < 1 || layer >= NETWORK_SIZE) {
+            LOGGER.log(Level.SEVERE, "Passed an invalid layer to setActivation()."
+                    + " Expected a layer between 1 and " + (NETWORK_SIZE - 1) + ".");
+            return;
+        }
+        activation[layer] = function;
+    }
+
+    public Activation getActivation(int layer) {
+        return activation[layer];
+    }
+
+    public double[] calculateOutput(InferenceContext context, double... input) {
+        if (input.length != INPUT_SIZE || !fits(context)) return null;
+        context.setInput(0, input);
+        infer(context, 1);
+        context.getOutput(0, context.output);
+        return context.output;
+    }
+
+    public double[][] calculateOutputs(double[][] inputs) {
+        return calculateOutputs(LOCAL_CONTEXT.get().context(this), inputs);
+    }
+
+    public double[][] calculateOutputs(InferenceContext context, double[][] inputs) {
+        int count = inputs.length;
+        for (double[] input : inputs) {
+            if (input.length != INPUT_SIZE) return null;
+        }
+        if (!fits(context)) return null;
+        context.ensureCapacity(count);
+
+        for (int sample = 0; sample < count; sample++) context.setInput(sample, inputs[sample]);
+        infer(context, count);
+
+        double[][] outputs = context.outputRows(count);
+        for (int sample = 0; sample < count; sample++) context.getOutput(sample, outputs[sample]);
+        return outputs;
+    }
+
+    public void calculateOutputs(InferenceContext context, double[] inputs, int count, double[] outputs) {
+        if (inputs.length < count * INPUT_SIZE || outputs.length < count * OUTPUT_SIZE) {
+            LOGGER.log(Level.SEVERE, "Passed an invalid input or output size to calculateOutputs()."
+                    + " Expected inputs[" + count * INPUT_SIZE + "], outputs[" + count * OUTPUT_SIZE + "].");
+            return;
+        }
+        if (!fits(context)) return;
+        context.ensureCapacity(count);
+        context.setInputs(inputs, count);
+        infer(context, count);
+        context.getOutputs(outputs, count);
+    }
+
+    public void train (double[] input, double[] target, double rate, int iterations) {
+        if (input.length != INPUT_SIZE || target.length != OUTPUT_SIZE) return;
+
+        single.load(input, 0, target, 0, 0);
+        for (int i = 0; i < iterations; i++) {
+            forward(single, 1);
+            backward(single, 1);
+            applyGradients(single, rate);
+        }
+    }
+
+    public void train(TrainSet set, int loops, int batchSize, double rate) {
+        if (set.getINPUT_SIZE() != INPUT_SIZE || set.getTARGET_SIZE() != OUTPUT_SIZE) {
+            LOGGER.log(Level.SEVERE, "Passed a TrainSet with an invalid input and target size to train()."
+                    + " Expected inputs[" + INPUT_SIZE + "], targets[" + OUTPUT_SIZE + "].");
+            return;
+        }
+        for (int i = 0; i < loops; i++) {
+            Batch samples = set.extractBatch(batchSize);
+            int count = samples.size();
+            if (count == 0) return;
+            if (batch == null || batch.capacity < count) batch = newWorkspace(count);
+
+            for (int j = 0; j < count; j++) batch.load(samples, j, j);
+            forward(batch, count);
+            backward(batch, count);
+            applyGradients(batch, rate / count);
+        }
+    }
+
+    public double MSE (double[] input, double[] target) {
+        if (input.length != INPUT_SIZE || target.length != OUTPUT_SIZE) return 0;
+
+        double[] output = calculateOutput(input);
+
+        double sum = 0;
+        for (int i = 0; i < target.length; i++) {
+            sum += (target[i] - output[i]) * (target[i] - output[i]);
+        }
+        return sum / (2d * target.length);
+    }
+
+    //true if the context was made for a network of this shape and precision
+    private boolean fits(InferenceContext context) {
+        if (context.fits(LAYER_SIZES, getPrecision())) return true;
+        LOGGER.log(Level.SEVERE, "Passed an InferenceContext made for a different network.");
+        return false;
+    }
+
+
+        //Creates scratch buffers for count samples in this network's precision
+        abstract Workspace newWorkspace(int capacity);
+
+        //Feeds count samples of context through the network for inference only
+        abstract void infer (InferenceContext context, int count);
+
+        //Feeds the first count samples of ws through the network, keeping derivatives
+        abstract void forward (Workspace ws, int count);
+
+        //Calculates the errors of the first count samples against their targets and
+        //stores the summed weight and bias gradients in ws
+        abstract void backward (Workspace ws, int count);
+
+        //Takes one gradient descent step of the given size along the gradients in ws
+        abstract void applyGradients (Workspace ws, double rate);
+
+        //Sums the gradients of several workspaces (in order) and takes one step of
+        //the given size, only touching the part-th of partCount slices of each layer
+        abstract void applyGradients (Workspace[] parts, double rate, int part, int partCount);
+
+        //Caches the calling thread's contexts by network shape and precision, so
+        //every network of the same shape shares one context and none is kept alive
+        private static final class LocalContext {
+            private static final int SIZE = 4;
+            private final InferenceContext[] contexts = new InferenceContext[SIZE];
+            private int next;
+
+            InferenceContext context(LayeredNetwork net) {
+                for (InferenceContext context : contexts) {
+                    if (context != null && context.fits(net.LAYER_SIZES, net.getPrecision())) return context;
+                }
+                InferenceContext context = new InferenceContext(net);
+                contexts[next] = context;
+                next = (next + 1) % SIZE;
+                return context;
+            }
+        }
+}
@@ -5,197 +5,296 @@ Here is a link to his channel: https://www.youtube.com/channel/UCaKAU8vQzS-_e5xt
 
 package Network;
 
-import TrainSet.TrainSet;
+import Activation.Activation;
+import TrainSet.Precision;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
-public class Network {
+//Double precision network, see NeuralNetwork
+public class Network extends LayeredNetwork {
     private static final Logger LOGGER = Logger.getLogger( Network.class.getName() );
 
-    public final int INPUT_SIZE;
-    public final int OUTPUT_SIZE;
-    public final int[] LAYER_SIZES;
-    public final int NETWORK_SIZE;
     public final double MIN_BIAS = -0.7;
     public final double MAX_BIAS = 0.7;
     public final double MIN_WEIGHT = -1;
     public final double MAX_WEIGHT = 1;
 
-        private double[][] output;              //output[layer][neuron]
         private double[][] bias;                //bias[layer][neuron]
-        private double[][][] weights;           //weights[layer][neuron][prevNeuron]
-        private double[][] errors;              //errors[layer][neuron]
-        private double[][] outputDerivative;    //outputDerivative[layer][neuron]
+        private double[][] weights;             //weights[layer][neuron * prevLayerSize + prevNeuron]
 
 
     public Network(int... layers) {
+        super(layers);
 
-        LAYER_SIZES = layers;
-        NETWORK_SIZE = LAYER_SIZES.length;
-        INPUT_SIZE = LAYER_SIZES[0];
-        OUTPUT_SIZE = LAYER_SIZES[NETWORK_SIZE - 1];
-
-        output = new double[NETWORK_SIZE][];
         bias = new double[NETWORK_SIZE][];
-        errors = new double[NETWORK_SIZE][];
-        outputDerivative = new double[NETWORK_SIZE][];
-        weights = new double[NETWORK_SIZE][][];
-
-
-        output[0] = new double[LAYER_SIZES[0]];
+        weights = new double[NETWORK_SIZE][];
 
         for (int layer = 1; layer < NETWORK_SIZE; layer++) {
 
-            output[layer] = new double[LAYER_SIZES[layer]];
-
             bias[layer] = createRandomArray(LAYER_SIZES[layer], MIN_BIAS, MAX_BIAS);
 
-            errors[layer] = new double[LAYER_SIZES[layer]];
-
-            outputDerivative[layer] = new double[LAYER_SIZES[layer]];
-
-            weights[layer] = createRandomArray(LAYER_SIZES[layer],
-                    LAYER_SIZES[layer - 1], MIN_WEIGHT, MAX_WEIGHT);
+            weights[layer] = createRandomArray(LAYER_SIZES[layer] * LAYER_SIZES[layer - 1],
+                    MIN_WEIGHT, MAX_WEIGHT);
         }
     }
 
-    public double[] calculateOutput(double... input) {
-        if (input.length != INPUT_SIZE) return null;
-        output[0] = input;
+    public Precision getPrecision() { return Precision.DOUBLE; }
 
+    //Returns a new network with the same layers, activations, weights and biases
+    public Network copy() {
+        Network net = new Network(LAYER_SIZES.clone());
         for (int layer = 1; layer < NETWORK_SIZE; layer++) {
-            for (int neuron = 0; neuron < LAYER_SIZES[layer]; neuron++) {
-
-                double sum = bias[layer][neuron];
-
-                for(int prevNeuron = 0; prevNeuron < LAYER_SIZES[layer-1]; prevNeuron++) {
-                    sum += output[layer-1][prevNeuron] * weights[layer][neuron][prevNeuron];
-                }
-
-                output[layer][neuron] = sigmoid(sum);
-
-                //Sets up the derivative used in the backpropogation algorithm
-                outputDerivative[layer][neuron] = output[layer][neuron] * (1 - output[layer][neuron]);
-            }
+            System.arraycopy(bias[layer], 0, net.bias[layer], 0, bias[layer].length);
+            System.arraycopy(weights[layer], 0, net.weights[layer], 0, weights[layer].length);
+            net.activation[layer] = activation[layer];
         }
+        return net;
+    }
 
-        return output[NETWORK_SIZE-1];
+    //Loads a network saved with save(), converting a FloatNetwork's parameters to doubles
+    public static Network load(String filename) throws IOException {
+        return (Network) NetworkFile.load(filename, Precision.DOUBLE);
     }
 
-    public void train (double[] input, double[] target, double rate, int iterations) {
-        if (target.length != OUTPUT_SIZE) return;
+    //Returns the number of weights and biases in the network
+    public int getParameterCount() {
+        int count = 0;
+        for (int layer = 1; layer < NETWORK_SIZE; layer++) count += weights[layer].length + bias[layer].length;
+        return count;
+    }
 
-        for (int i = 0; i < iterations; i++) {
-            calculateOutput(input);
-            backpropError(target);
-            updateWeights(rate);
+    //Copies every weight and bias into a flat array: for each layer, its weights then its biases
+    public void getParameters(double[] parameters) {
+        int index = 0;
+        for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+            System.arraycopy(weights[layer], 0, parameters, index, weights[layer].length);
+            index += weights[layer].length;
+            System.arraycopy(bias[layer], 0, parameters, index, bias[layer].length);
+            index += bias[layer].length;
         }
     }
 
-    public void train(TrainSet set, int loops, int batchSize, double rate) {
-        if (set.getINPUT_SIZE() != INPUT_SIZE || set.getTARGET_SIZE() != OUTPUT_SIZE) {
-            LOGGER.log(Level.SEVERE, "Passed a TrainSet with an invalid input and target size to train()."
-                    + " Expected inputs[" + INPUT_SIZE + "], targets[" + OUTPUT_SIZE + "].");
+    //Sets every weight and bias from a flat array laid out like getParameters()
+    public void setParameters(double[] parameters) {
+        if (parameters.length != getParameterCount()) {
+            LOGGER.log(Level.SEVERE, "Passed an invalid parameter count to setParameters()."
+                    + " Expected parameters[" + getParameterCount() + "].");
             return;
         }
-        for (int i = 0; i < loops; i++) {
-            TrainSet batch = set.extractBatch(batchSize);
-            for (int j=0; j < batch.size(); j++) {
-                calculateOutput(batch.getInput((j)));
-                backpropError(batch.getTarget(j));
-                updateWeights(rate);
-            }
+        int index = 0;
+        for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+            System.arraycopy(parameters, index, weights[layer], 0, weights[layer].length);
+            index += weights[layer].length;
+            System.arraycopy(parameters, index, bias[layer], 0, bias[layer].length);
+            index += bias[layer].length;
         }
     }
 
+    public double[] calculateOutput(double... input) {
+        if (input.length != INPUT_SIZE) return null;
+        DoubleWorkspace ws = (DoubleWorkspace) single;
+        System.arraycopy(input, 0, ws.output[0], 0, INPUT_SIZE);
+        infer(ws.output, 1);
+        return ws.output[NETWORK_SIZE-1];
+    }
+
     public double[] getLastOutput () {
-        return output[NETWORK_SIZE-1];
+        return ((DoubleWorkspace) single).output[NETWORK_SIZE-1];
     }
 
-    //Returns the Mean Squared Error between the target and output given a set of inputs
-    public double MSE (double[] input, double[] target) {
-        if (input.length != INPUT_SIZE || target.length != OUTPUT_SIZE) return 0;
 
-        calculateOutput(input);
+        Workspace newWorkspace(int capacity) {
+            return new DoubleWorkspace(LAYER_SIZES, capacity);
+        }
+
+        void infer (InferenceContext context, int count) {
+            infer(context.activations, count);
+        }
 
-        double sum = 0;
-        for (int i = 0; i < target.length; i++) {
-            sum += (target[i] - output[NETWORK_SIZE - 1][i]) * (target[i] - output[NETWORK_SIZE - 1][i]);
+        //Feeds count samples through the network for inference only: no derivatives
+        //are kept. Loops over each weight row once for the whole batch.
+        void infer (double[][] activations, int count) {
+            for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+                Activation function = activation[layer];
+                int size = LAYER_SIZES[layer];
+                int prevSize = LAYER_SIZES[layer - 1];
+                double[] w = weights[layer];
+                double[] b = bias[layer];
+                double[] in = activations[layer - 1];
+                double[] out = activations[layer];
+
+                for (int neuron = 0; neuron < size; neuron++) {
+                    int row = neuron * prevSize;
+                    for (int sample = 0; sample < count; sample++) {
+                        int inRow = sample * prevSize;
+                        double sum = b[neuron];
+
+                        for (int prevNeuron = 0; prevNeuron < prevSize; prevNeuron++) {
+                            sum += in[inRow + prevNeuron] * w[row + prevNeuron];
+                        }
+
+                        out[sample * size + neuron] = function.apply(sum);
+                    }
+                }
+            }
         }
-        return sum / (2d * target.length);
-    }
 
+        //Feeds the first count samples of ws.output[0] through the network
+        void forward (Workspace workspace, int count) {
+            DoubleWorkspace ws = (DoubleWorkspace) workspace;
+            for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+                Activation function = activation[layer];
+                int size = LAYER_SIZES[layer];
+                int prevSize = LAYER_SIZES[layer - 1];
+                double[] w = weights[layer];
+                double[] b = bias[layer];
+                double[] in = ws.output[layer - 1];
+                double[] out = ws.output[layer];
+                double[] derivative = ws.outputDerivative[layer];
+
+                for (int sample = 0; sample < count; sample++) {
+                    int inRow = sample * prevSize;
+                    int outRow = sample * size;
+                    for (int neuron = 0; neuron < size; neuron++) {
+
+                        double sum = b[neuron];
+                        int row = neuron * prevSize;
+
+                        for (int prevNeuron = 0; prevNeuron < prevSize; prevNeuron++) {
+                            sum += in[inRow + prevNeuron] * w[row + prevNeuron];
+                        }
+
+                        double value = function.apply(sum);
+                        out[outRow + neuron] = value;
+
+                        //Sets up the derivative used in the backpropogation algorithm
+                        derivative[outRow + neuron] = function.derivative(value);
+                    }
+                }
+            }
+        }
 
-        private void backpropError (double[] target) {
+        //Calculates the errors of the first count samples against ws.target and
+        //stores the summed weight and bias gradients in ws
+        void backward (Workspace workspace, int count) {
+            DoubleWorkspace ws = (DoubleWorkspace) workspace;
 
             //Calculate error for output layer
-            for (int neuron = 0; neuron < LAYER_SIZES[NETWORK_SIZE - 1]; neuron++) {
-                errors[NETWORK_SIZE-1][neuron] = (output[NETWORK_SIZE-1][neuron] - target[neuron])
-                        * outputDerivative[NETWORK_SIZE - 1][neuron];
+            int last = NETWORK_SIZE - 1;
+            double[] out = ws.output[last];
+            double[] derivative = ws.outputDerivative[last];
+            double[] err = ws.errors[last];
+            for (int i = 0; i < count * OUTPUT_SIZE; i++) {
+                err[i] = (out[i] - ws.target[i]) * derivative[i];
             }
 
             //Calculate error for hidden neurons
             for (int layer = NETWORK_SIZE - 2; layer > 0; layer --) {
-                for (int neuron = 0; neuron < LAYER_SIZES[layer]; neuron++) {
-                    double sum = 0;
-
-                    for (int nextNeuron = 0; nextNeuron < LAYER_SIZES[layer + 1]; nextNeuron++) {
-                        sum += weights[layer + 1][nextNeuron][neuron] * errors[layer + 1][nextNeuron];
+                int size = LAYER_SIZES[layer];
+                int nextSize = LAYER_SIZES[layer + 1];
+                double[] w = weights[layer + 1];
+                double[] nextErr = ws.errors[layer + 1];
+                err = ws.errors[layer];
+                derivative = ws.outputDerivative[layer];
+
+                for (int sample = 0; sample < count; sample++) {
+                    int row = sample * size;
+                    for (int neuron = 0; neuron < size; neuron++) err[row + neuron] = 0;
+
+                    //Walk the next layer's weights row by row instead of down a column
+                    for (int nextNeuron = 0; nextNeuron < nextSize; nextNeuron++) {
+                        double e = nextErr[sample * nextSize + nextNeuron];
+                        int wRow = nextNeuron * size;
+                        for (int neuron = 0; neuron < size; neuron++) {
+                            err[row + neuron] += w[wRow + neuron] * e;
+                        }
                     }
 
-                    errors[layer][neuron] = sum * outputDerivative[layer][neuron];
+                    for (int neuron = 0; neuron < size; neuron++) err[row + neuron] *= derivative[row + neuron];
                 }
             }
-        }
 
-        private void updateWeights (double rate) {
+            //Sum the gradients over the batch
             for (int layer = 1; layer < NETWORK_SIZE; layer++) {
-                for (int neuron = 0; neuron < LAYER_SIZES[layer]; neuron++) {
-
-                    //Adjusting bias
-                    double delta = -rate * errors[layer][neuron];
-                    bias[layer][neuron] += delta;
-
-                    //Adjusting weights
-                    for (int prevNeuron = 0; prevNeuron < LAYER_SIZES[layer - 1]; prevNeuron++) {
-                        weights[layer][neuron][prevNeuron] += delta * output[layer -1][prevNeuron];
+                int size = LAYER_SIZES[layer];
+                int prevSize = LAYER_SIZES[layer - 1];
+                double[] gw = ws.weightGradient[layer];
+                double[] gb = ws.biasGradient[layer];
+                double[] in = ws.output[layer - 1];
+                err = ws.errors[layer];
+                Arrays.fill(gw, 0);
+                Arrays.fill(gb, 0);
+
+                for (int sample = 0; sample < count; sample++) {
+                    int inRow = sample * prevSize;
+                    for (int neuron = 0; neuron < size; neuron++) {
+                        double e = err[sample * size + neuron];
+                        gb[neuron] += e;
+                        int row = neuron * prevSize;
+                        for (int prevNeuron = 0; prevNeuron < prevSize; prevNeuron++) {
+                            gw[row + prevNeuron] += e * in[inRow + prevNeuron];
+                        }
                     }
                 }
             }
         }
 
-        private double sigmoid(double x) {
-            return 1d / (1 + Math.exp(-x));
+        void applyGradients (Workspace workspace, double rate) {
+            DoubleWorkspace ws = (DoubleWorkspace) workspace;
+            applyGradients(ws.weightGradient, ws.biasGradient, rate);
         }
 
-        private static double[] createRandomArray (int size, double min, double max) {
-            Random rand = new Random();
+        //Takes one gradient descent step of the given size
+        void applyGradients (double[][] weightGradient, double[][] biasGradient, double rate) {
+            for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+                double[] b = bias[layer];
+                double[] gb = biasGradient[layer];
+                for (int neuron = 0; neuron < b.length; neuron++) b[neuron] -= rate * gb[neuron];
 
-            double[] array = new double[size];
-            for (int i = 0; i < size; i++) {
-                array[i] = (Math.random() * (max - min)) + min;
+                double[] w = weights[layer];
+                double[] gw = weightGradient[layer];
+                for (int i = 0; i < w.length; i++) w[i] -= rate * gw[i];
             }
+        }
 
-            return array;
+        //Sums the gradients of several workspaces (in order) and takes one step of
+        //the given size, only touching the part-th of partCount slices of each layer
+        void applyGradients (Workspace[] parts, double rate, int part, int partCount) {
+            for (int layer = 1; layer < NETWORK_SIZE; layer++) {
+                double[] b = bias[layer];
+                int from = (int) ((long) part * b.length / partCount);
+                int to = (int) ((long) (part + 1) * b.length / partCount);
+                for (int neuron = from; neuron < to; neuron++) {
+                    double sum = 0;
+                    for (Workspace ws : parts) sum += ((DoubleWorkspace) ws).biasGradient[layer][neuron];
+                    b[neuron] -= rate * sum;
+                }
+
+                double[] w = weights[layer];
+                from = (int) ((long) part * w.length / partCount);
+                to = (int) ((long) (part + 1) * w.length / partCount);
+                for (int i = from; i < to; i++) {
+                    double sum = 0;
+                    for (Workspace ws : parts) sum += ((DoubleWorkspace) ws).weightGradient[layer][i];
+                    w[i] -= rate * sum;
+                }
+            }
         }
 
-        private static double[][] createRandomArray (int size1, int size2, double min, double max) {
+        private static double[] createRandomArray (int size, double min, double max) {
             Random rand = new Random();
 
-            double[][] array = new double[size1][size2];
-            for (int i = 0; i < size1; i++) {
-                for (int j = 0; j < size2; j++) {
-                    array[i][j] = (Math.random() * (max - min)) + min;
-
-                }
+            double[] array = new double[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = (Math.random() * (max - min)) + min;
             }
 
             return array;
         }
 
 }
-
-
@@ -0,0 +1,151 @@
+package Network;
+
+import Activation.Activation;
+import TrainSet.Precision;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary on-disk format for a trained Network or FloatNetwork. All values are
+ * little-endian.
+ *
+ * <pre>
+ * header (16 bytes)
+ *   int    magic           "NNET"
+ *   int    version         1
+ *   int    layer count
+ *   int    parameter width 8 for doubles (Network), 4 for floats (FloatNetwork);
+ *                          0 in older files, meaning doubles
+ * int[layer count]         layer sizes
+ * int[layer count]         activation of each layer (Activation code, -1 for the input layer)
+ * int                      padding, if the layer count is odd
+ * double[] or float[]     for each layer after the input layer: its weights, then its biases
+ *                          (the order of NeuralNetwork.getParameters)
+ * </pre>
+ *
+ * Loading maps the file into memory and copies the parameters straight out of
+ * the mapping, so a saved network is ready for inference in milliseconds.
+ *
+ * @author JAForewit
+ * @see NeuralNetwork
+ */
+public final class NetworkFile {
+    static final int MAGIC = 0x54454E4E;   // "NNET" in little-endian byte order
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private NetworkFile() {}
+
+    /**
+     * Writes a network to a new file, replacing any existing file.
+     *
+     * @param filename the model file
+     * @param network the network to save
+     * @throws IOException if the file can not be written
+     */
+    public static void save(String filename, NeuralNetwork network) throws IOException {
+        int[] sizes = network.getLAYER_SIZES();
+        int layers = sizes.length;
+        int width = width(network.getPrecision());
+        double[] parameters = new double[network.getParameterCount()];
+        network.getParameters(parameters);
+
+        ByteBuffer buffer = ByteBuffer.allocate(parametersOffset(layers) + parameters.length * width).order(ORDER);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(layers).putInt(width);
+        for (int size : sizes) buffer.putInt(size);
+        buffer.putInt(-1);
+        for (int layer = 1; layer < layers; layer++) buffer.putInt(network.getActivation(layer).getCode());
+        buffer.position(parametersOffset(layers));
+        if (width == 4) {
+            for (double parameter : parameters) buffer.putFloat((float) parameter);
+        } else {
+            buffer.asDoubleBuffer().put(parameters);
+        }
+        buffer.position(0);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads a network from a file, in the precision it was saved with.
+     *
+     * @param filename the model file
+     * @return the saved network, a Network or a FloatNetwork
+     * @throws IOException if the file can not be read or is not a valid model file
+     */
+    public static NeuralNetwork load(String filename) throws IOException { return load(filename, null); }
+
+    /**
+     * Reads a network from a file into a network of the given precision,
+     * widening or rounding its parameters if it was saved in the other one.
+     *
+     * @param filename the model file
+     * @param precision precision of the returned network, or null for the saved precision
+     * @return the saved network
+     * @throws IOException if the file can not be read or is not a valid model file
+     */
+    public static NeuralNetwork load(String filename, Precision precision) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) throw new IOException("The file is too short to hold a network.");
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ORDER);
+
+            if (map.getInt() != MAGIC) throw new IOException("The file is not a network file.");
+            int version = map.getInt();
+            if (version != VERSION) throw new IOException("Unsupported network file version " + version + ".");
+            int layers = map.getInt();
+            int width = map.getInt();
+            if (width == 0) width = 8;
+            if (width != 8 && width != 4) throw new IOException("Unknown parameter width " + width + ".");
+            if (precision == null) precision = width == 4 ? Precision.FLOAT : Precision.DOUBLE;
+            if (layers < 2 || channel.size() < parametersOffset(layers))
+                throw new IOException("The network file header is corrupt.");
+
+            int[] sizes = new int[layers];
+            for (int i = 0; i < layers; i++) {
+                sizes[i] = map.getInt();
+                if (sizes[i] <= 0) throw new IOException("The network file header is corrupt.");
+            }
+            int[] activations = new int[layers];
+            for (int i = 0; i < layers; i++) activations[i] = map.getInt();
+
+            NeuralNetwork network = NeuralNetwork.create(precision, sizes);
+            for (int layer = 1; layer < layers; layer++) {
+                Activation function = Activation.fromCode(activations[layer]);
+                if (function == null) throw new IOException("Unknown activation function " + activations[layer] + ".");
+                network.setActivation(layer, function);
+            }
+
+            double[] parameters = new double[network.getParameterCount()];
+            if (channel.size() != parametersOffset(layers) + (long) parameters.length * width)
+                throw new IOException("The network file does not match its layer sizes.");
+            map.position(parametersOffset(layers));
+            if (width == 4) {
+                for (int i = 0; i < parameters.length; i++) parameters[i] = map.getFloat();
+            } else {
+                map.asDoubleBuffer().get(parameters);
+            }
+            network.setParameters(parameters);
+            return network;
+        }
+    }
+
+    // bytes per stored parameter
+    private static int width(Precision precision) { return precision == Precision.FLOAT ? 4 : 8; }
+
+    // byte offset of the parameters, 8-byte aligned
+    private static int parametersOffset(int layers) {
+        int offset = HEADER_BYTES + 2 * 4 * layers;
+        return (offset + 7) & ~7;
+    }
+}
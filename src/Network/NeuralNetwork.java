@@ -0,0 +1,100 @@
+package Network;
+
+import Activation.Activation;
+import TrainSet.Precision;
+import TrainSet.TrainSet;
+
+import java.io.IOException;
+
+/**
+ * A fully connected, layered neural network. Network stores its parameters as
+ * doubles and FloatNetwork as floats; both take and return doubles, so the
+ * precision is only chosen when a network is created (see create) and every
+ * trainer, controller and file works with either.
+ *
+ * @author JAForewit
+ * @see Network
+ * @see FloatNetwork
+ */
+public interface NeuralNetwork {
+
+    /**
+     * Creates a network with random weights and biases.
+     *
+     * @param precision precision of the weights, biases and activations
+     * @param layers number of neurons in each layer, inputs first
+     * @return a Network for DOUBLE, a FloatNetwork for FLOAT
+     */
+    static NeuralNetwork create(Precision precision, int... layers) {
+        return precision == Precision.FLOAT ? new FloatNetwork(layers) : new Network(layers);
+    }
+
+    /**
+     * Loads a network saved with save(), in the precision it was saved with.
+     *
+     * @param filename the model file
+     * @return the saved network
+     * @throws IOException if the file can not be read or is not a valid model file
+     * @see NetworkFile
+     */
+    static NeuralNetwork load(String filename) throws IOException { return NetworkFile.load(filename); }
+
+    Precision getPrecision();
+    int getINPUT_SIZE();
+    int getOUTPUT_SIZE();
+    int[] getLAYER_SIZES();
+
+    //Returns a new network of the same precision with the same layers, activations, weights and biases
+    NeuralNetwork copy();
+
+    //Saves the layer sizes, activations, weights and biases (see NetworkFile)
+    void save(String filename) throws IOException;
+
+    //Returns the number of weights and biases in the network
+    int getParameterCount();
+
+    //Copies every weight and bias into a flat array: for each layer, its weights then its biases
+    void getParameters(double[] parameters);
+
+    //Sets every weight and bias from a flat array laid out like getParameters()
+    void setParameters(double[] parameters);
+
+    //Uses the same activation function for every layer
+    void setActivation(Activation function);
+
+    //Sets the activation function of a single (non-input) layer
+    void setActivation(int layer, Activation function);
+
+    Activation getActivation(int layer);
+
+    //Evaluates one input using the network's own buffers (not thread-safe)
+    double[] calculateOutput(double... input);
+
+    //Thread-safe inference: evaluates one input using the calling thread's own context.
+    //The returned array belongs to that context and is overwritten by its next call.
+    double[] calculateOutput(InferenceContext context, double... input);
+
+    //Thread-safe inference of a batch of inputs in a single pass over the weights.
+    //The returned rows belong to the calling thread and are shared by every network
+    //of the same shape and precision: the thread's next calculateOutputs(double[][])
+    //on any such network overwrites them. Copy them, or use a context per network.
+    double[][] calculateOutputs(double[][] inputs);
+
+    //Batch inference using a caller owned context. The returned rows belong to the context.
+    double[][] calculateOutputs(InferenceContext context, double[][] inputs);
+
+    //Batch inference over row-major matrices: inputs[sample * INPUT_SIZE + i] and
+    //outputs[sample * OUTPUT_SIZE + i]. The output matrix is caller owned.
+    void calculateOutputs(InferenceContext context, double[] inputs, int count, double[] outputs);
+
+    void train(double[] input, double[] target, double rate, int iterations);
+
+    //Mini-batch gradient descent: the gradients of every sample in a batch are
+    //averaged and applied once per batch
+    void train(TrainSet set, int loops, int batchSize, double rate);
+
+    double[] getLastOutput();
+
+    //Returns the Mean Squared Error between the target and output given a set of inputs
+    double MSE(double[] input, double[] target);
+}
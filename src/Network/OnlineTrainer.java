@@ -0,0 +1,150 @@
+package Network;
+
+import TrainSet.SampleRing;
+
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps training a network (Network or FloatNetwork) on a background thread
+ * while the game is played.
+ * The game thread adds freshly captured samples through a SampleRing (no locks,
+ * no allocation). The trainer moves them into a sliding window of the most
+ * recent samples and runs mini-batch steps on random batches from that window.
+ * Every new sample buys STEPS_PER_SAMPLE steps; once they are spent the thread
+ * parks until more samples arrive, so an idle game leaves the CPU idle too.
+ *
+ * The trainer only ever changes its own private copy of the network. Every
+ * publishMillis it publishes a fresh copy through a volatile field, and that
+ * copy is never modified again. The game picks up the latest snapshot with
+ * a single volatile read (getSnapshot), so inference never waits for training.
+ *
+ * @author JAForewit
+ * @see Network
+ */
+public class OnlineTrainer {
+    private static final int RING_CAPACITY = 1 << 12;
+    private static final long IDLE_NANOS = 1000000;
+    private static final int STEPS_PER_SAMPLE = 4;
+
+    private final LayeredNetwork network;   // trained, touched by the trainer thread only
+    private final SampleRing ring;
+    private final int windowSize, batchSize;
+    private final double rate;
+    private final long publishNanos;
+    private final Thread thread;
+    private volatile NeuralNetwork snapshot;
+    private volatile boolean running;
+    private volatile long steps, snapshots;
+
+    // trainer thread only
+    private final double[] window;          // window[sample * RECORD + value], inputs then targets
+    private final Workspace batch;
+    private final Random random;
+    private final int RECORD;
+    private int windowCount, windowNext;
+
+    /**
+     * Starts training a copy of a network.
+     *
+     * @param network the starting weights, which are not modified
+     * @param windowSize number of recent samples batches are drawn from
+     * @param batchSize samples per training step
+     * @param rate learning rate (eta)
+     * @param publishMillis time between snapshots
+     * @param seed seed for batch sampling
+     */
+    public OnlineTrainer(NeuralNetwork network, int windowSize, int batchSize, double rate, long publishMillis, long seed) {
+        this.network = LayeredNetwork.of(network.copy());
+        this.snapshot = network.copy();
+        this.ring = new SampleRing(network.getINPUT_SIZE(), network.getOUTPUT_SIZE(), RING_CAPACITY);
+        this.windowSize = windowSize;
+        this.batchSize = batchSize;
+        this.rate = rate;
+        this.publishNanos = publishMillis * 1000000;
+        this.RECORD = network.getINPUT_SIZE() + network.getOUTPUT_SIZE();
+        this.window = new double[windowSize * RECORD];
+        this.batch = this.network.newWorkspace(batchSize);
+        this.random = new Random(seed);
+
+        running = true;
+        thread = new Thread(this::run, "OnlineTrainer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Adds a captured sample. Game thread only; never blocks or allocates.
+     *
+     * @param inputs input neuron values
+     * @param targets target output neuron values
+     */
+    public void add(double[] inputs, double[] targets) { ring.add(inputs, targets); }
+
+    /**
+     * Changes a target of the newest sample. Game thread only.
+     *
+     * @param target index of the target value
+     * @param value new target value
+     */
+    public void labelLast(int target, double value) { ring.labelLast(target, value); }
+
+    /**
+     * Returns the latest published network. It is never modified afterwards.
+     *
+     * @return the snapshot
+     */
+    public NeuralNetwork getSnapshot() { return snapshot; }
+
+    public long getSteps() { return steps; }
+    public long getSnapshots() { return snapshots; }
+
+    /**
+     * Stops the trainer thread and waits for it.
+     */
+    public void stop() {
+        running = false;
+        try { thread.join(); }
+        catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    // trainer thread
+    private void run() {
+        long published = System.nanoTime(), publishedSteps = 0;
+        long budget = 0;                    // steps left before waiting for new samples
+        while (running) {
+            while (ring.poll(window, windowNext * RECORD)) {
+                windowNext = (windowNext + 1) % windowSize;
+                windowCount = Math.min(windowCount + 1, windowSize);
+                budget = Math.min(budget + STEPS_PER_SAMPLE, (long) windowSize * STEPS_PER_SAMPLE);
+            }
+            if (steps != publishedSteps && System.nanoTime() - published >= publishNanos) {
+                snapshot = network.copy();
+                snapshots++;
+                publishedSteps = steps;
+                published = System.nanoTime();
+            }
+            if (windowCount < batchSize || budget == 0) {
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+
+            step();
+            budget--;
+        }
+    }
+
+    // one mini-batch step on random samples from the window
+    private void step() {
+        int inputSize = network.INPUT_SIZE;
+        for (int j = 0; j < batchSize; j++) {
+            int offset = random.nextInt(windowCount) * RECORD;
+            batch.load(window, offset, window, offset + inputSize, j);
+        }
+        network.forward(batch, batchSize);
+        network.backward(batch, batchSize);
+        network.applyGradients(batch, rate / batchSize);
+        steps++;
+    }
+}
@@ -0,0 +1,134 @@
+package Network;
+
+import TrainSet.TrainSet;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Trains a Network or FloatNetwork with data-parallel mini-batch gradient descent. Every batch is
+ * split into one contiguous slice per thread; each thread runs its slice through
+ * its own Workspace, then the per-thread gradients are summed and applied once.
+ *
+ * The batches are drawn from a seeded Random and the gradients are always summed
+ * in thread order, so training is deterministic for a given network, seed and
+ * thread count.
+ *
+ * @author JAForewit
+ * @version 1.0, 02/08/2018
+ */
+public class ParallelTrainer {
+    private static final Logger LOGGER = Logger.getLogger( ParallelTrainer.class.getName() );
+
+    private final LayeredNetwork network;
+    private final int threads;
+    private final ForkJoinPool pool;
+    private final Random random;
+    private Workspace[] workspaces;     //workspaces[thread]
+    private int[] samples;              //indices of the current batch
+    private int[] sliceStart;           //sliceStart[thread] .. sliceStart[thread+1] = samples of a thread
+
+    /**
+     * Creates a trainer with its own pool of worker threads.
+     *
+     * @param network the network to train
+     * @param threads number of worker threads
+     * @param seed seed for choosing batches
+     */
+    public ParallelTrainer(NeuralNetwork network, int threads, long seed) {
+        this.network = LayeredNetwork.of(network);
+        this.threads = Math.max(1, threads);
+        this.pool = new ForkJoinPool(this.threads);
+        this.random = new Random(seed);
+        this.workspaces = new Workspace[0];
+    }
+
+    /**
+     * Trains the network using random batches of a TrainSet. Like Network.train(),
+     * each batch's averaged gradient is applied once.
+     *
+     * @param set the TrainSet object which holds all input and target data for training
+     * @param loops the number of batches to train on
+     * @param batchSize the number of samples in each batch
+     * @param rate learning rate (eta)
+     */
+    public void train(TrainSet set, int loops, int batchSize, double rate) {
+        if (set.getINPUT_SIZE() != network.INPUT_SIZE || set.getTARGET_SIZE() != network.OUTPUT_SIZE) {
+            LOGGER.log(Level.SEVERE, "Passed a TrainSet with an invalid input and target size to train()."
+                    + " Expected inputs[" + network.INPUT_SIZE + "], targets[" + network.OUTPUT_SIZE + "].");
+            return;
+        }
+        if (set.size() == 0 || batchSize <= 0) return;
+        prepare(batchSize);
+
+        for (int i = 0; i < loops; i++) {
+            for (int j = 0; j < batchSize; j++) samples[j] = random.nextInt(set.size());
+            pool.invoke(new Step(set, 0, threads, rate / batchSize, false));
+            pool.invoke(new Step(set, 0, threads, rate / batchSize, true));
+        }
+    }
+
+    /**
+     * Stops the worker threads. The trainer can not be used afterwards.
+     */
+    public void shutdown() { pool.shutdown(); }
+
+    public int getThreads() { return threads; }
+
+    //sizes the per thread slices and workspaces for a batch size
+    private void prepare(int batchSize) {
+        if (samples != null && samples.length == batchSize) return;
+        samples = new int[batchSize];
+        sliceStart = new int[threads + 1];
+        for (int t = 0; t <= threads; t++) sliceStart[t] = (int) ((long) t * batchSize / threads);
+
+        int capacity = (batchSize + threads - 1) / threads;
+        if (workspaces.length == 0 || workspaces[0].capacity < capacity) {
+            workspaces = new Workspace[threads];
+            for (int t = 0; t < threads; t++) workspaces[t] = network.newWorkspace(capacity);
+        }
+    }
+
+    //calculates the gradients of one thread's slice of the batch
+    private void computeGradients(TrainSet set, int thread) {
+        Workspace ws = workspaces[thread];
+        int count = sliceStart[thread + 1] - sliceStart[thread];
+        for (int j = 0; j < count; j++) ws.load(set, samples[sliceStart[thread] + j], j);
+        network.forward(ws, count);
+        network.backward(ws, count);
+    }
+
+    //Splits the worker threads in half until one is left. The gradient step runs
+    //a thread's slice of the batch, the apply step sums and applies a thread's
+    //slice of the parameters.
+    private class Step extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final TrainSet set;
+        private final int from, to;
+        private final double rate;
+        private final boolean apply;
+
+        Step(TrainSet set, int from, int to, double rate, boolean apply) {
+            this.set = set;
+            this.from = from;
+            this.to = to;
+            this.rate = rate;
+            this.apply = apply;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Step(set, from, mid, rate, apply), new Step(set, mid, to, rate, apply));
+            } else if (apply) {
+                network.applyGradients(workspaces, rate, from, threads);
+            } else {
+                computeGradients(set, from);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package Network;
+
+import TrainSet.Batch;
+import TrainSet.TrainSet;
+
+/**
+ * Scratch buffers for running a batch of samples through a network. Every
+ * buffer is a contiguous row-major matrix with one row per sample, so the
+ * forward and backward passes walk memory sequentially. The gradients have the
+ * same layout as the network's weights and biases.
+ *
+ * Each network creates workspaces in its own precision (see
+ * LayeredNetwork.newWorkspace); trainers only load samples into them.
+ * A workspace belongs to one thread; several workspaces can share one network.
+ */
+abstract class Workspace {
+    final int capacity;                 //maximum number of samples
+    final int inputSize, targetSize;
+
+    Workspace(int[] layerSizes, int capacity) {
+        this.capacity = capacity;
+        this.inputSize = layerSizes[0];
+        this.targetSize = layerSizes[layerSizes.length - 1];
+    }
+
+    //copies a sample of a TrainSet into slot
+    abstract void load(TrainSet set, int index, int slot);
+
+    //copies a sample of a Batch into slot
+    abstract void load(Batch batch, int index, int slot);
+
+    //copies inputSize inputs and targetSize targets into slot
+    abstract void load(double[] inputs, int inputOffset, double[] targets, int targetOffset, int slot);
+}
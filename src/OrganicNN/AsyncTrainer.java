@@ -0,0 +1,89 @@
+package OrganicNN;
+
+import TrainSet.TrainSet;
+
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Trains an OrganicNN with lock-free asynchronous stochastic gradient descent
+ * (Hogwild). Several threads draw their own random samples from the same
+ * TrainSet and backpropagate into the shared weights and biases without any
+ * locking; each thread only owns its neuron output and error buffers.
+ *
+ * Updates are plain (relaxed) writes to the primitive weight arrays, so threads
+ * can overwrite each other's updates. For small networks where every update is
+ * cheap this costs far less than synchronising, at the price of a noisier
+ * descent and results that are not reproducible.
+ *
+ * @author JAForewit
+ * @version 1.0, 02/08/2018
+ */
+public class AsyncTrainer {
+    private static final Logger LOGGER = Logger.getLogger( AsyncTrainer.class.getName() );
+
+    private final OrganicNN network;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * Creates an asynchronous trainer.
+     *
+     * @param network the network to train
+     * @param threads number of training threads
+     * @param seed base seed, thread i samples with seed + i
+     */
+    public AsyncTrainer(OrganicNN network, int threads, long seed) {
+        this.network = network;
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+    }
+
+    /**
+     * Trains the network like OrganicNN.train(), with the loops shared out between
+     * the threads. Returns once every thread has finished.
+     *
+     * @param set the TrainSet object which holds all input and target data for training
+     * @param loops the total number of batches, split between the threads
+     * @param batchSize the number of samples in each batch
+     * @param rate learning rate (eta)
+     */
+    public void train(TrainSet set, int loops, int batchSize, double rate) {
+        if (set.getINPUT_SIZE() != network.getInputCount() || set.getTARGET_SIZE() != network.getOutputCount()) {
+            LOGGER.log(Level.SEVERE, "Passed a TrainSet with an invalid input and target size to train()."
+                    + " Expected inputs[" + network.getInputCount() + "], targets[" + network.getOutputCount() + "].");
+            return;
+        }
+        if (set.size() == 0) return;
+
+        ExecutionPlan plan = network.getPlan();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int workerLoops = (int) ((long) (t + 1) * loops / threads - (long) t * loops / threads);
+            Random random = new Random(seed + t);
+            workers[t] = new Thread(() -> {
+                double[] output = new double[plan.neuronCount];
+                double[] error = new double[plan.neuronCount];
+                double[] target = new double[plan.outputCount];
+                for (int i = 0; i < workerLoops * batchSize; i++) {
+                    int sample = random.nextInt(set.size());
+                    set.getInput(sample, output, 0);
+                    set.getTarget(sample, target, 0);
+                    plan.propagate(output);
+                    plan.backpropagate(target, rate, output, error);
+                }
+            }, "AsyncTrainer-" + t);
+            workers[t].start();
+        }
+
+        try {
+            for (Thread worker : workers) worker.join();
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.WARNING, "Interrupted while waiting for training threads.");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getThreads() { return threads; }
+}
@@ -0,0 +1,376 @@
+package OrganicNN;
+
+import Activation.Activation;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A "compiled" form of an organic neural network. The neuron graph is flattened
+ * into contiguous primitive arrays so the feed forward and backpropagation
+ * algorithms run as simple loops instead of recursing through every axon.
+ *
+ * Neurons are renumbered into a topological order grouped by dependency level:
+ * the input neurons come first (level 0), and every other neuron is placed after
+ * all of the neurons feeding into it. Axons are stored twice in CSR form: grouped
+ * by target neuron for the feed forward pass, and grouped by source neuron for
+ * backpropagation. Each weight is only stored once (in target order).
+ *
+ * Neurons in the same level never feed each other, so a level can be evaluated
+ * in any order. Given a pool, levels with at least parallelThreshold axons are
+ * split into chunks and evaluated in parallel (a wavefront: one level after
+ * another, forwards for feed forward and backwards for backpropagation).
+ * Every neuron only writes its own output, error, bias and outgoing weights,
+ * so the results are identical to sequential evaluation. Narrow levels, and
+ * whole networks without a wide level, run sequentially.
+ *
+ * @author JAForewit
+ * @version 1.0, 02/08/2018
+ * @see OrganicNN
+ */
+final class ExecutionPlan {
+    final int inputCount;       // number of input neurons
+    final int outputCount;      // number of output neurons
+    final int neuronCount;      // total number of neurons
+
+    final int[] inStart;        // inStart[neuron] .. inStart[neuron+1] = incoming axons
+    final int[] inSource;       // inSource[axon] = source neuron of an incoming axon
+    final double[] weights;     // weights[axon] = weight of an incoming axon
+    final int[] outStart;       // outStart[neuron] .. outStart[neuron+1] = outgoing axons
+    final int[] outTarget;      // outTarget[i] = target neuron of an outgoing axon
+    final int[] outAxon;        // outAxon[i] = index of that axon in weights[]
+    final int[] levelStart;     // levelStart[level] .. levelStart[level+1] = neurons in a level
+    final int[] outputIndex;    // outputIndex[i] = neuron holding output i
+    final int[] targetIndex;    // targetIndex[neuron] = output slot of a neuron, or -1
+    final double[] bias;        // bias[neuron]
+    Activation activation = Activation.SIGMOID;
+    private ForkJoinPool pool;          // evaluates wide levels, or null
+    private int parallelThreshold;      // fewest axons in a level worth splitting
+    private int chunkAxons;             // axons per parallel chunk
+    private boolean parallel;           // true if some level reaches the threshold
+
+    final double[] output;      // output[neuron]
+    final double[] error;       // error[neuron]
+
+    private ExecutionPlan(int inputCount, int outputCount, int neuronCount, int axonCount, int levelCount) {
+        this.inputCount = inputCount;
+        this.outputCount = outputCount;
+        this.neuronCount = neuronCount;
+        inStart = new int[neuronCount + 1];
+        inSource = new int[axonCount];
+        weights = new double[axonCount];
+        outStart = new int[neuronCount + 1];
+        outTarget = new int[axonCount];
+        outAxon = new int[axonCount];
+        levelStart = new int[levelCount + 1];
+        outputIndex = new int[outputCount];
+        targetIndex = new int[neuronCount];
+        bias = new double[neuronCount];
+        output = new double[neuronCount];
+        error = new double[neuronCount];
+    }
+
+    /**
+     * Flattens a graph given as a list of axons. Neuron ids follow the structure
+     * file convention: the first inputCount neurons are the input neurons and
+     * output i is held by neuron (neuronCount - i - 1).
+     *
+     * @param inputCount number of input neurons
+     * @param outputCount number of output neurons
+     * @param neuronCount total number of neurons
+     * @param source source neuron of each axon
+     * @param target target neuron of each axon
+     * @param weight weight of each axon
+     * @param bias bias of each neuron
+     * @return the compiled network
+     * @throws IllegalArgumentException if the graph has a cycle
+     */
+    static ExecutionPlan compile(int inputCount, int outputCount, int neuronCount,
+                                 int[] source, int[] target, double[] weight, double[] bias) {
+        int axonCount = source.length;
+
+        // outgoing CSR over the original ids, used to walk the graph
+        int[] fanOut = new int[neuronCount + 1];
+        int[] fanIn = new int[neuronCount];
+        for (int a = 0; a < axonCount; a++) {
+            fanOut[source[a] + 1]++;
+            fanIn[target[a]]++;
+        }
+        for (int i = 0; i < neuronCount; i++) fanOut[i + 1] += fanOut[i];
+        int[] next = new int[axonCount];
+        int[] fill = Arrays.copyOf(fanOut, neuronCount);
+        for (int a = 0; a < axonCount; a++) next[fill[source[a]]++] = a;
+
+        // Kahn's algorithm, tracking the dependency level of every neuron
+        int[] level = new int[neuronCount];
+        int[] queue = new int[neuronCount];
+        int head = 0, tail = 0;
+        for (int i = 0; i < neuronCount; i++) {
+            if (fanIn[i] == 0) {
+                level[i] = i < inputCount ? 0 : 1;
+                queue[tail++] = i;
+            }
+        }
+        int levelCount = 1;
+        while (head < tail) {
+            int n = queue[head++];
+            levelCount = Math.max(levelCount, level[n] + 1);
+            for (int i = fanOut[n]; i < fanOut[n + 1]; i++) {
+                int t = target[next[i]];
+                level[t] = Math.max(level[t], level[n] + 1);
+                if (--fanIn[t] == 0) queue[tail++] = t;
+            }
+        }
+        if (tail < neuronCount)
+            throw new IllegalArgumentException("The network contains a cycle through neuron "
+                    + onCycle(neuronCount, source, target, fanIn) + ".");
+
+        // stable counting sort by level gives each neuron its position
+        int[] levelStart = new int[levelCount + 1];
+        for (int i = 0; i < neuronCount; i++) levelStart[level[i] + 1]++;
+        for (int l = 0; l < levelCount; l++) levelStart[l + 1] += levelStart[l];
+        int[] position = new int[neuronCount];
+        int[] slot = Arrays.copyOf(levelStart, levelCount);
+        for (int i = 0; i < neuronCount; i++) position[i] = slot[level[i]]++;
+
+        ExecutionPlan plan = new ExecutionPlan(inputCount, outputCount, neuronCount, axonCount, levelCount);
+        System.arraycopy(levelStart, 0, plan.levelStart, 0, levelCount + 1);
+        for (int i = 0; i < neuronCount; i++) plan.bias[position[i]] = bias[i];
+        Arrays.fill(plan.targetIndex, -1);
+        for (int i = 0; i < outputCount; i++) {
+            plan.outputIndex[i] = position[neuronCount - i - 1];
+            plan.targetIndex[plan.outputIndex[i]] = i;
+        }
+
+        // incoming CSR (owns the weights)
+        int[] axonIndex = new int[axonCount];
+        for (int a = 0; a < axonCount; a++) plan.inStart[position[target[a]] + 1]++;
+        for (int i = 0; i < neuronCount; i++) plan.inStart[i + 1] += plan.inStart[i];
+        fill = Arrays.copyOf(plan.inStart, neuronCount);
+        for (int a = 0; a < axonCount; a++) {
+            int e = fill[position[target[a]]]++;
+            axonIndex[a] = e;
+            plan.inSource[e] = position[source[a]];
+            plan.weights[e] = weight[a];
+        }
+
+        // outgoing CSR (refers to the incoming weights)
+        for (int a = 0; a < axonCount; a++) plan.outStart[position[source[a]] + 1]++;
+        for (int i = 0; i < neuronCount; i++) plan.outStart[i + 1] += plan.outStart[i];
+        fill = Arrays.copyOf(plan.outStart, neuronCount);
+        for (int a = 0; a < axonCount; a++) {
+            int e = fill[position[source[a]]]++;
+            plan.outTarget[e] = position[target[a]];
+            plan.outAxon[e] = axonIndex[a];
+        }
+
+        // neurons without inputs hold their resting output
+        for (int n = 0; n < neuronCount; n++) plan.output[n] = plan.activation.apply(plan.bias[n]);
+        return plan;
+    }
+
+    // A neuron on a cycle, given the fanIn left over by Kahn's algorithm: every
+    // neuron with fanIn left has a predecessor that also has some, so walking
+    // back neuronCount steps from any of them must end up on a cycle
+    private static int onCycle(int neuronCount, int[] source, int[] target, int[] fanIn) {
+        int[] previous = new int[neuronCount];
+        for (int a = 0; a < source.length; a++) {
+            if (fanIn[target[a]] > 0 && fanIn[source[a]] > 0) previous[target[a]] = source[a];
+        }
+        int n = 0;
+        while (fanIn[n] == 0) n++;
+        for (int i = 0; i < neuronCount; i++) n = previous[n];
+        return n;
+    }
+
+    /**
+     * Changes the activation function used by every neuron.
+     *
+     * @param function the new activation function
+     */
+    void setActivation(Activation function) {
+        activation = function;
+        for (int n = inputCount; n < neuronCount; n++)
+            if (inStart[n] == inStart[n + 1]) output[n] = activation.apply(bias[n]);
+    }
+
+    /**
+     * Evaluates wide levels in parallel on a pool, or sequentially if pool is null.
+     *
+     * @param pool the pool, or null
+     * @param threshold fewest axons in a level for it to be evaluated in parallel
+     */
+    void setParallelism(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.parallelThreshold = Math.max(1, threshold);
+        parallel = false;
+        if (pool == null) return;
+        for (int l = 0; l < levelStart.length - 1; l++) {
+            parallel |= inStart[levelStart[l + 1]] - inStart[levelStart[l]] >= parallelThreshold;
+            parallel |= outStart[levelStart[l + 1]] - outStart[levelStart[l]] >= parallelThreshold;
+        }
+        // a few chunks per thread balance the load without drowning it in tasks
+        chunkAxons = Math.max(256, parallelThreshold / (4 * pool.getParallelism()));
+    }
+
+    /**
+     * Returns the number of axons in the network.
+     *
+     * @return number of axons
+     */
+    int axonCount() { return weights.length; }
+
+    /**
+     * Feeds the inputs through the network in topological order. The outputs
+     * are left in output[outputIndex[i]].
+     *
+     * @param inputs values for each input neuron
+     */
+    void feedForward(double[] inputs) { feedForward(inputs, output); }
+
+    /**
+     * Feeds the inputs through the network using caller provided scratch space,
+     * so several threads can evaluate the same plan at once.
+     *
+     * @param inputs values for each input neuron
+     * @param output receives the output of every neuron (length neuronCount)
+     */
+    void feedForward(double[] inputs, double[] output) {
+        System.arraycopy(inputs, 0, output, 0, inputCount);
+        propagate(output);
+    }
+
+    /**
+     * Feeds the values already held by the input neurons (output[0 .. inputCount])
+     * through the network.
+     *
+     * @param output the output of every neuron (length neuronCount)
+     */
+    void propagate(double[] output) {
+        if (parallel) pool.invoke(new Wavefront(null, 0, output, null, false));
+        else propagate(output, inputCount, neuronCount);
+    }
+
+    // feeds forward the neurons from .. to, whose inputs are all known
+    private void propagate(double[] output, int from, int to) {
+        for (int n = from; n < to; n++) {
+            double sum = bias[n];
+            for (int e = inStart[n], end = inStart[n + 1]; e < end; e++)
+                sum += weights[e] * output[inSource[e]];
+            output[n] = activation.apply(sum);
+        }
+    }
+
+    /**
+     * Backpropagates the error of the last feed forward pass in reverse
+     * topological order. A neuron's error is complete once every neuron it feeds
+     * has been visited, so its outgoing axons can be updated right away without
+     * affecting any error that is still to be calculated.
+     *
+     * @param targets target values for the output neurons
+     * @param rate learning rate (eta)
+     */
+    void backpropagate(double[] targets, double rate) { backpropagate(targets, rate, output, error); }
+
+    /**
+     * Backpropagates using caller provided scratch space. Weights and biases are
+     * updated with plain writes, so concurrent callers race on them (Hogwild).
+     *
+     * @param targets target values for the output neurons
+     * @param rate learning rate (eta)
+     * @param output the outputs left by feedForward(inputs, output)
+     * @param error receives the error of every neuron (length neuronCount)
+     */
+    void backpropagate(double[] targets, double rate, double[] output, double[] error) {
+        if (parallel) pool.invoke(new Wavefront(targets, rate, output, error, true));
+        else backpropagate(targets, rate, output, error, 0, neuronCount);
+    }
+
+    // backpropagates the neurons from .. to, whose targets' errors are all known
+    private void backpropagate(double[] targets, double rate, double[] output, double[] error, int from, int to) {
+        for (int n = to - 1; n >= from; n--) {
+            double out = output[n];
+            double err;
+            if (targetIndex[n] >= 0) {
+                err = out - targets[targetIndex[n]];
+            } else {
+                err = 0;
+                for (int i = outStart[n], end = outStart[n + 1]; i < end; i++)
+                    err += error[outTarget[i]] * weights[outAxon[i]];
+            }
+            err *= activation.derivative(out);
+            error[n] = err;
+
+            // update weights
+            for (int i = outStart[n], end = outStart[n + 1]; i < end; i++)
+                weights[outAxon[i]] -= rate * out * error[outTarget[i]];
+
+            // update bias
+            if (n >= inputCount) bias[n] -= rate * err;
+        }
+    }
+
+    // Runs the levels one after another, splitting the wide ones into chunks.
+    private final class Wavefront extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final double[] targets, output, error;
+        private final double rate;
+        private final boolean backward;
+
+        Wavefront(double[] targets, double rate, double[] output, double[] error, boolean backward) {
+            this.targets = targets;
+            this.rate = rate;
+            this.output = output;
+            this.error = error;
+            this.backward = backward;
+        }
+
+        @Override
+        protected void compute() {
+            int levels = levelStart.length - 1;
+            if (backward) {
+                for (int l = levels - 1; l >= 0; l--) level(levelStart[l], levelStart[l + 1]);
+            } else {
+                for (int l = 1; l < levels; l++) level(levelStart[l], levelStart[l + 1]);
+            }
+        }
+
+        private void level(int from, int to) {
+            if (work(from, to) >= parallelThreshold) new Chunk(this, from, to).compute();
+            else run(from, to);
+        }
+
+        int work(int from, int to) {
+            return backward ? outStart[to] - outStart[from] : inStart[to] - inStart[from];
+        }
+
+        void run(int from, int to) {
+            if (backward) backpropagate(targets, rate, output, error, from, to);
+            else propagate(output, from, to);
+        }
+    }
+
+    // Halves a range of neurons in one level until each part holds about chunkAxons axons.
+    private final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Wavefront pass;
+        private final int from, to;
+
+        Chunk(Wavefront pass, int from, int to) {
+            this.pass = pass;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && pass.work(from, to) > chunkAxons) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Chunk(pass, from, mid), new Chunk(pass, mid, to));
+            } else {
+                pass.run(from, to);
+            }
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package OrganicNN;
 
+import Activation.Activation;
+import TrainSet.Batch;
 import TrainSet.TrainSet;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Uses the Neuron class to create an organic Deep Neural Network (DNN),
- * a "structureless" neural network defined by neuron axons instead of layers.
+ * An organic Deep Neural Network (DNN), a "structureless" neural network
+ * defined by neuron axons instead of layers. The axons of a Topology are
+ * compiled into an ExecutionPlan of flat arrays, which runs the feed forward
+ * and backpropagation passes.
  *
  * @author JAForewit
  * @version 1.0, 02/08/2018
@@ -23,55 +25,93 @@ public class OrganicNN {
     private final double MAX_BIAS = 0.7;
     private final double MIN_WEIGHT = -1.0;
     private final double MAX_WEIGHT = 1.0;
+    /** Fewest axons in a dependency level for it to be evaluated in parallel by default. */
+    public static final int PARALLEL_THRESHOLD = 1 << 13;
     private int inputCount;     // number of input neurons
     private int outputCount;    // number of output neurons
     private int neuronCount;    // total number of neurons
-    private Neuron neurons[];
+    private ExecutionPlan plan; // flattened neuron graph
+    private double[] target;    // target values of the current training sample
+    private ForkJoinPool pool;  // evaluates wide levels in parallel, or null
 
     /**
      * Creates a neural network defined by the number of input neurons, output neurons,
      * hidden neurons, and the axon connections between them. That information is
-     * loaded from a text file.
+     * loaded from a structure file, either the text format or the binary format
+     * written by Topology.writeBinary. Once loaded, the network is compiled into a
+     * flat execution plan which is used for feed forward and backpropagation.
      *
-     * @param filename text file that defines the network
+     * @param filename structure file that defines the network
+     * @throws IllegalArgumentException if the file can not be read or is malformed
+     * @see Topology
      * @see "README.md"
      */
-    public OrganicNN(String filename) {
-        // load structure file
-        try(BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-
-            // read network critical definitions
-            int[] nextLine = Arrays.stream(reader.readLine().split("\\s")).mapToInt(Integer::parseInt).toArray();
-            inputCount = nextLine[0];
-            outputCount = nextLine[2];
-            neuronCount = inputCount + outputCount + nextLine[1];
-
-            // initialize neurons with a random bias
-            neurons = new Neuron[neuronCount];
-            double randBias;
-            for (int i = 0; i < neuronCount; i++) {
-                randBias = (Math.random() * (MAX_BIAS - MIN_BIAS)) + MIN_BIAS;
-                neurons[i] = new Neuron(randBias);
-            }
+    public OrganicNN(String filename) { this(readStructure(filename)); }
 
-            // create axons and assign random weights
-            double randWeight;
-            for (int i = 0; i < neuronCount - outputCount; i++) {
-                nextLine = Arrays.stream(reader.readLine().split("\\s")).mapToInt(Integer::parseInt).toArray();
-                for (int index : nextLine) {
-                    randWeight = (Math.random() * (MAX_WEIGHT - MIN_WEIGHT)) + MIN_WEIGHT;
-                    neurons[i].addOutputAxon(neurons[index], randWeight);
-                }
-            }
+    /**
+     * Creates a neural network with the given structure, random biases and random
+     * weights.
+     *
+     * @param topology neurons and axons of the network
+     * @throws IllegalArgumentException if the axons form a cycle
+     */
+    public OrganicNN(Topology topology) {
+        inputCount = topology.getInputCount();
+        outputCount = topology.getOutputCount();
+        neuronCount = topology.getNeuronCount();
+
+        // random biases for every neuron, then random weights in axon order
+        double[] bias = new double[neuronCount];
+        for (int i = 0; i < neuronCount; i++) bias[i] = (Math.random() * (MAX_BIAS - MIN_BIAS)) + MIN_BIAS;
+        double[] weight = new double[topology.getAxonCount()];
+        for (int a = 0; a < weight.length; a++) weight[a] = (Math.random() * (MAX_WEIGHT - MIN_WEIGHT)) + MIN_WEIGHT;
+
+        plan = ExecutionPlan.compile(inputCount, outputCount, neuronCount,
+                topology.sources(), topology.targets(), weight, bias);
+        target = new double[outputCount];
+    }
 
-            // verifying the file has ended
-            if (reader.readLine() != null) throw new IOException();
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "There was a problem reading the structure file.");
-            e.printStackTrace();
+    private static Topology readStructure(String filename) {
+        try {
+            return Topology.read(filename);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.SEVERE, "There was a problem reading the structure file: " + e.getMessage());
+            throw new IllegalArgumentException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Wraps an already compiled network (see OrganicNNFile.load).
+     *
+     * @param plan the compiled network
+     */
+    OrganicNN(ExecutionPlan plan) {
+        this.plan = plan;
+        inputCount = plan.inputCount;
+        outputCount = plan.outputCount;
+        neuronCount = plan.neuronCount;
+        target = new double[outputCount];
+    }
+
+    /**
+     * Loads a network saved with save(), including its weights and biases.
+     *
+     * @param filename the model file
+     * @return the saved network
+     * @throws IOException if the file can not be read or is not a valid model file
+     * @see OrganicNNFile
+     */
+    public static OrganicNN load(String filename) throws IOException { return OrganicNNFile.load(filename); }
+
+    /**
+     * Saves the network's topology, weights, biases and activation function.
+     *
+     * @param filename the model file, replaced if it exists
+     * @throws IOException if the file can not be written
+     * @see OrganicNNFile
+     */
+    public void save(String filename) throws IOException { OrganicNNFile.save(filename, this); }
+
     /**
      * Returns the number of input neurons
      *
@@ -86,6 +126,68 @@ public class OrganicNN {
      */
     public int getOutputCount() { return outputCount; }
 
+    /**
+     * Returns the total number of neurons
+     *
+     * @return number of neurons
+     */
+    public int getNeuronCount() { return neuronCount; }
+
+    /**
+     * Returns the number of axons
+     *
+     * @return number of axons
+     */
+    public int getAxonCount() { return plan.axonCount(); }
+
+    /**
+     * Returns the compiled network used for feed forward and backpropagation.
+     *
+     * @return the execution plan
+     */
+    ExecutionPlan getPlan() { return plan; }
+
+    /**
+     * Sets the activation function used by every neuron in the network.
+     * The default is the sigmoid function.
+     *
+     * @param function the new activation function
+     * @see Activation
+     */
+    public void setActivation(Activation function) { plan.setActivation(function); }
+
+    /**
+     * Evaluates wide networks on several threads. Neurons are grouped into
+     * dependency levels; every level with at least PARALLEL_THRESHOLD axons is
+     * split across the threads, for both feed forward and backpropagation. Small
+     * networks such as net.structure have no such level and stay sequential.
+     * Results are identical to sequential evaluation.
+     *
+     * @param threads number of worker threads, 1 for sequential evaluation
+     */
+    public void setParallelism(int threads) { setParallelism(threads, PARALLEL_THRESHOLD); }
+
+    /**
+     * Evaluates wide networks on several threads, splitting every dependency level
+     * with at least threshold axons across them.
+     *
+     * @param threads number of worker threads, 1 for sequential evaluation
+     * @param threshold fewest axons in a level for it to be evaluated in parallel
+     * @see #setParallelism(int)
+     */
+    public void setParallelism(int threads, int threshold) {
+        if (pool != null) pool.shutdown();
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        plan.setParallelism(pool, threshold);
+    }
+
+    /**
+     * Returns the activation function used by every neuron in the network.
+     *
+     * @return the activation function
+     */
+    public Activation getActivation() { return plan.activation; }
+
     /**
      * Feeds input values into the neural network and returns the outputs.
      *
@@ -98,9 +200,25 @@ public class OrganicNN {
                     + " Expected inputs[" + inputCount + "].");
             return null;
         }
-        double[] outputs = new double[outputCount];
+        return calculateOutput(inputs, new double[outputCount]);
+    }
+
+    /**
+     * Feeds input values into the neural network and writes the outputs into a
+     * caller provided array. This does not allocate.
+     *
+     * @param inputs values for each input neuron
+     * @param outputs array receiving the output of each output neuron
+     * @return outputs
+     */
+    public double[] calculateOutput(double[] inputs, double[] outputs) {
+        if (inputs.length != inputCount || outputs.length != outputCount) {
+            LOGGER.log(Level.SEVERE, "Passed an invalid input or output size to calculateOutputs()."
+                    + " Expected inputs[" + inputCount + "], outputs[" + outputCount + "].");
+            return null;
+        }
         feedForward(inputs);
-        for (int i=0; i<outputCount; i++) outputs[i] = neurons[neuronCount-i-1].getOutput();
+        for (int i=0; i<outputCount; i++) outputs[i] = plan.output[plan.outputIndex[i]];
         return outputs;
     }
 
@@ -140,9 +258,12 @@ public class OrganicNN {
             return;
         }
         for (int i = 0; i < loops; i++) {
-            TrainSet batch = set.extractBatch(batchSize);
+            Batch batch = set.extractBatch(batchSize);
             for (int j=0; j < batch.size(); j++) {
-                this.backpropagate(batch.getInput(j), batch.getTarget(j), rate);
+                batch.getInput(j, plan.output, 0);
+                batch.getTarget(j, target, 0);
+                plan.propagate(plan.output);
+                plan.backpropagate(target, rate);
             }
         }
     }
@@ -161,9 +282,12 @@ public class OrganicNN {
                     + " Expected: inputs[" + inputCount + "] targets[" + outputCount + "].");
             return Double.NaN;
         }
+        feedForward(inputs);
         double sum = 0;
-        for (int i=0; i<outputCount; i++)
-            sum += (targets[i] - calculateOutput(inputs)[i]) * (targets[i] - calculateOutput(inputs)[i]);
+        for (int i=0; i<outputCount; i++) {
+            double diff = targets[i] - plan.output[plan.outputIndex[i]];
+            sum += diff * diff;
+        }
         return sum / (2d * outputCount);
     }
 
@@ -176,8 +300,7 @@ public class OrganicNN {
      * @see "README.md"
      */
     private void feedForward(double[] inputs) {
-        for (int i=0; i<inputCount; i++)
-            neurons[i].feedForward(inputs[i]);
+        plan.feedForward(inputs);
     }
 
     /**
@@ -191,7 +314,7 @@ public class OrganicNN {
      * @param rate the learning rate (eta)
      */
     private void backpropagate(double[] inputs, double[] targets, double rate) {
-        feedForward(inputs);
-        for (int i=0; i<outputCount; i++) neurons[neuronCount-i-1].backpropagate(targets[i], rate);
+        plan.feedForward(inputs);
+        plan.backpropagate(targets, rate);
     }
 }
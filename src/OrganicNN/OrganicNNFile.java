@@ -0,0 +1,136 @@
+package OrganicNN;
+
+import Activation.Activation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary on-disk format for a trained OrganicNN: its topology, weights, biases
+ * and activation function. All values are little-endian.
+ *
+ * <pre>
+ * header (32 bytes)
+ *   int    magic           "ONET"
+ *   int    version         1
+ *   int    input count
+ *   int    output count
+ *   int    neuron count
+ *   int    axon count
+ *   int    activation      Activation code
+ *   int    reserved
+ * int[axon count]          source neuron of each axon
+ * int[axon count]          target neuron of each axon
+ * double[neuron count]     bias of each neuron
+ * double[axon count]       weight of each axon
+ * </pre>
+ *
+ * Neurons are numbered as in a structure file: the inputs first, and output i
+ * held by neuron (neuron count - i - 1). Axons are stored grouped by target
+ * neuron in evaluation order, so a loaded network adds up every neuron's inputs
+ * in the same order and gives bit-identical outputs. Loading maps the file into
+ * memory and compiles the execution plan straight from the mapped arrays.
+ *
+ * @author JAForewit
+ * @see OrganicNN
+ */
+public final class OrganicNNFile {
+    static final int MAGIC = 0x54454E4F;   // "ONET" in little-endian byte order
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private OrganicNNFile() {}
+
+    /**
+     * Writes a network to a new file, replacing any existing file.
+     *
+     * @param filename the model file
+     * @param network the network to save
+     * @throws IOException if the file can not be written
+     */
+    public static void save(String filename, OrganicNN network) throws IOException {
+        ExecutionPlan plan = network.getPlan();
+        int neurons = plan.neuronCount, axons = plan.axonCount();
+
+        // file id of every plan position: inputs first, outputs last, the rest in plan order
+        int[] id = new int[neurons];
+        boolean[] isOutput = new boolean[neurons];
+        for (int i = 0; i < plan.outputCount; i++) {
+            id[plan.outputIndex[i]] = neurons - i - 1;
+            isOutput[plan.outputIndex[i]] = true;
+        }
+        for (int n = 0, next = 0; n < neurons; n++) if (!isOutput[n]) id[n] = next++;
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + axons * 16 + neurons * 8).order(ORDER);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(plan.inputCount).putInt(plan.outputCount)
+                .putInt(neurons).putInt(axons).putInt(plan.activation.getCode()).putInt(0);
+        for (int n = 0; n < neurons; n++)
+            for (int e = plan.inStart[n]; e < plan.inStart[n + 1]; e++) buffer.putInt(id[plan.inSource[e]]);
+        for (int n = 0; n < neurons; n++)
+            for (int e = plan.inStart[n]; e < plan.inStart[n + 1]; e++) buffer.putInt(id[n]);
+        double[] bias = new double[neurons];
+        for (int n = 0; n < neurons; n++) bias[id[n]] = plan.bias[n];
+        for (double b : bias) buffer.putDouble(b);
+        for (int n = 0; n < neurons; n++)
+            for (int e = plan.inStart[n]; e < plan.inStart[n + 1]; e++) buffer.putDouble(plan.weights[e]);
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads a network from a file.
+     *
+     * @param filename the model file
+     * @return the saved network
+     * @throws IOException if the file can not be read or is not a valid model file
+     */
+    public static OrganicNN load(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) throw new IOException("The file is too short to hold a network.");
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ORDER);
+
+            if (map.getInt() != MAGIC) throw new IOException("The file is not an organic network file.");
+            int version = map.getInt();
+            if (version != VERSION) throw new IOException("Unsupported organic network file version " + version + ".");
+            int inputs = map.getInt(), outputs = map.getInt(), neurons = map.getInt(), axons = map.getInt();
+            int code = map.getInt();
+            map.getInt();
+            if (inputs <= 0 || outputs <= 0 || neurons < inputs + outputs || axons < 0
+                    || channel.size() != HEADER_BYTES + axons * 16L + neurons * 8L)
+                throw new IOException("The organic network file header is corrupt.");
+            Activation activation = Activation.fromCode(code);
+            if (activation == null) throw new IOException("Unknown activation function " + code + ".");
+
+            int[] source = new int[axons], target = new int[axons];
+            double[] bias = new double[neurons], weight = new double[axons];
+            map.asIntBuffer().get(source);
+            map.position(HEADER_BYTES + axons * 4);
+            map.asIntBuffer().get(target);
+            map.position(HEADER_BYTES + axons * 8);
+            map.asDoubleBuffer().get(bias);
+            map.position(HEADER_BYTES + axons * 8 + neurons * 8);
+            map.asDoubleBuffer().get(weight);
+            for (int a = 0; a < axons; a++) {
+                if (source[a] < 0 || source[a] >= neurons || target[a] < inputs || target[a] >= neurons)
+                    throw new IOException("Axon " + a + " of the organic network file is invalid.");
+            }
+
+            ExecutionPlan plan;
+            try { plan = ExecutionPlan.compile(inputs, outputs, neurons, source, target, weight, bias); }
+            catch (IllegalArgumentException e) { throw new IOException(e.getMessage(), e); }
+            plan.setActivation(activation);
+            return new OrganicNN(plan);
+        }
+    }
+}
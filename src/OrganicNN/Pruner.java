@@ -0,0 +1,262 @@
+package OrganicNN;
+
+import TrainSet.TrainSet;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shrinks a trained OrganicNN by removing its least important axons and the
+ * neurons left without a purpose, so a smaller network can stand in for it.
+ *
+ * First the network is evaluated on representative inputs (record), keeping
+ * the mean and standard deviation of every neuron's output. An axon's
+ * importance is its weight magnitude times the deviation of its source neuron:
+ * when an axon is removed its average contribution (weight * mean) is moved
+ * into the target neuron's bias, so only the varying part of the signal is
+ * lost. Axons leaving dead neurons (outputs that barely change) are removed
+ * first since they cost nothing, then the least important axons until the
+ * target sparsity is reached. Afterwards hidden neurons that no longer feed
+ * anything are removed, and hidden neurons that no longer have inputs are
+ * folded into the biases of the neurons they feed. The survivors are
+ * renumbered into a new, compact network which can then be fine-tuned with
+ * OrganicNN.train.
+ *
+ * <pre>
+ * Pruner pruner = new Pruner(network);
+ * pruner.record(data);
+ * OrganicNN small = pruner.prune(0.9);
+ * small.train(data, loops, batchSize, rate);
+ * </pre>
+ *
+ * @author JAForewit
+ * @see OrganicNN
+ */
+public final class Pruner {
+    private static final Logger LOGGER = Logger.getLogger( Pruner.class.getName() );
+    private static final double DEAD_DEVIATION = 1e-3;
+
+    private final ExecutionPlan plan;
+    private final double[] output;      // scratch, output[neuron]
+    private final double[] sum;         // sum[neuron] of recorded outputs
+    private final double[] sumSquares;  // sumSquares[neuron] of recorded outputs
+    private long samples;
+
+    /**
+     * Prepares to prune a network. The network itself is never modified.
+     *
+     * @param network the trained network
+     */
+    public Pruner(OrganicNN network) {
+        plan = network.getPlan();
+        output = new double[plan.neuronCount];
+        sum = new double[plan.neuronCount];
+        sumSquares = new double[plan.neuronCount];
+    }
+
+    /**
+     * Evaluates the network on one input and records every neuron's output.
+     *
+     * @param inputs values for each input neuron
+     */
+    public void record(double[] inputs) {
+        if (inputs.length != plan.inputCount) {
+            LOGGER.log(Level.SEVERE, "Passed an invalid input size to record()."
+                    + " Expected inputs[" + plan.inputCount + "].");
+            return;
+        }
+        plan.feedForward(inputs, output);
+        accumulate();
+    }
+
+    /**
+     * Evaluates the network on every input of a data set and records every
+     * neuron's output.
+     *
+     * @param set the data set, usually the captured gameplay
+     */
+    public void record(TrainSet set) {
+        if (set.getINPUT_SIZE() != plan.inputCount) {
+            LOGGER.log(Level.SEVERE, "Passed a TrainSet with an invalid input size to record()."
+                    + " Expected inputs[" + plan.inputCount + "].");
+            return;
+        }
+        for (int i = 0; i < set.size(); i++) {
+            set.getInput(i, output, 0);
+            plan.propagate(output);
+            accumulate();
+        }
+    }
+
+    private void accumulate() {
+        for (int n = 0; n < plan.neuronCount; n++) {
+            sum[n] += output[n];
+            sumSquares[n] += output[n] * output[n];
+        }
+        samples++;
+    }
+
+    /**
+     * Returns the number of recorded evaluations.
+     *
+     * @return number of samples
+     */
+    public long getSampleCount() { return samples; }
+
+    /**
+     * Returns the number of hidden neurons whose output barely changed over the
+     * recorded samples.
+     *
+     * @return number of dead neurons
+     */
+    public int getDeadNeuronCount() {
+        int dead = 0;
+        for (int n = plan.inputCount; n < plan.neuronCount; n++)
+            if (plan.targetIndex[n] < 0 && deviation(n) < DEAD_DEVIATION) dead++;
+        return dead;
+    }
+
+    // mean output of a neuron in plan order
+    double mean(int neuron) { return sum[neuron] / samples; }
+
+    // standard deviation of the output of a neuron in plan order
+    double deviation(int neuron) {
+        double mean = mean(neuron);
+        return Math.sqrt(Math.max(0, sumSquares[neuron] / samples - mean * mean));
+    }
+
+    /**
+     * Returns a pruned copy of the network with at least the given fraction of
+     * its axons removed (more if dead neurons allow it), and with every neuron
+     * that no longer contributes to the outputs removed.
+     *
+     * @param sparsity fraction of axons to remove, 0 to 1
+     * @return the compacted network, or null if nothing was recorded
+     */
+    public OrganicNN prune(double sparsity) {
+        if (samples == 0 || sparsity < 0 || sparsity > 1) {
+            LOGGER.log(Level.SEVERE, "Call record() before prune(), with a sparsity between 0 and 1.");
+            return null;
+        }
+        int neuronCount = plan.neuronCount, axonCount = plan.axonCount();
+        double[] bias = plan.bias.clone();
+        boolean[] cut = new boolean[axonCount];
+        boolean[] removed = new boolean[neuronCount];
+        int[] targetOf = new int[axonCount];
+        int[] fanIn = new int[neuronCount];
+        int[] fanOut = new int[neuronCount];
+        for (int n = 0; n < neuronCount; n++) {
+            fanIn[n] = plan.inStart[n + 1] - plan.inStart[n];
+            fanOut[n] = plan.outStart[n + 1] - plan.outStart[n];
+            for (int e = plan.inStart[n]; e < plan.inStart[n + 1]; e++) targetOf[e] = n;
+        }
+
+        // rank axons by importance, axons leaving dead neurons first
+        double[] importance = new double[axonCount];
+        int deadAxons = 0;
+        for (int e = 0; e < axonCount; e++) {
+            double deviation = deviation(plan.inSource[e]);
+            importance[e] = deviation < DEAD_DEVIATION ? -1 : Math.abs(plan.weights[e]) * deviation;
+            if (importance[e] < 0) deadAxons++;
+        }
+        int count = Math.max(deadAxons, (int) Math.round(sparsity * axonCount));
+        if (count > 0) {
+            double[] sorted = importance.clone();
+            Arrays.sort(sorted);
+            double threshold = sorted[count - 1];
+            int ties = count;
+            for (double value : sorted) if (value < threshold) ties--;
+            for (int e = 0; e < axonCount; e++) {
+                if (importance[e] < threshold || (importance[e] == threshold && ties-- > 0)) {
+                    int s = plan.inSource[e], t = targetOf[e];
+                    cut[e] = true;
+                    bias[t] += plan.weights[e] * mean(s);
+                    fanOut[s]--;
+                    fanIn[t]--;
+                }
+            }
+        }
+
+        // remove hidden neurons that feed nothing and fold those without inputs, until none are left
+        int[] queue = new int[neuronCount];
+        int head = 0, tail = 0;
+        boolean[] queued = new boolean[neuronCount];
+        for (int n = plan.inputCount; n < neuronCount; n++) {
+            if (plan.targetIndex[n] < 0) {
+                queue[tail++] = n;
+                queued[n] = true;
+            }
+        }
+        while (head != tail) {
+            int n = queue[head];
+            head = (head + 1) % neuronCount;
+            queued[n] = false;
+            if (removed[n]) continue;
+            if (fanOut[n] == 0) {
+                removed[n] = true;
+                for (int e = plan.inStart[n]; e < plan.inStart[n + 1]; e++) {
+                    if (cut[e]) continue;
+                    int s = plan.inSource[e];
+                    cut[e] = true;
+                    fanOut[s]--;
+                    if (s >= plan.inputCount && plan.targetIndex[s] < 0 && !queued[s]) {
+                        queue[tail] = s;
+                        tail = (tail + 1) % neuronCount;
+                        queued[s] = true;
+                    }
+                }
+            } else if (fanIn[n] == 0) {
+                removed[n] = true;
+                double constant = mean(n);
+                for (int i = plan.outStart[n]; i < plan.outStart[n + 1]; i++) {
+                    int e = plan.outAxon[i], t = plan.outTarget[i];
+                    if (cut[e]) continue;
+                    cut[e] = true;
+                    bias[t] += plan.weights[e] * constant;
+                    fanIn[t]--;
+                    if (plan.targetIndex[t] < 0 && !queued[t]) {
+                        queue[tail] = t;
+                        tail = (tail + 1) % neuronCount;
+                        queued[t] = true;
+                    }
+                }
+            }
+        }
+        return compact(bias, cut, removed);
+    }
+
+    // renumbers the surviving neurons (structure file convention) and compiles them
+    private OrganicNN compact(double[] bias, boolean[] cut, boolean[] removed) {
+        int neuronCount = plan.neuronCount, outputCount = plan.outputCount;
+        int[] id = new int[neuronCount];
+        int next = 0;
+        for (int n = 0; n < neuronCount; n++)
+            if (!removed[n] && plan.targetIndex[n] < 0) id[n] = next++;
+        int count = next + outputCount;
+        for (int i = 0; i < outputCount; i++) id[plan.outputIndex[i]] = count - i - 1;
+
+        // axons grouped by target in plan order, so every neuron sums its inputs as before
+        int axons = 0;
+        for (boolean c : cut) if (!c) axons++;
+        int[] source = new int[axons];
+        int[] target = new int[axons];
+        double[] weight = new double[axons];
+        double[] newBias = new double[count];
+        int a = 0;
+        for (int n = 0; n < neuronCount; n++) {
+            if (removed[n]) continue;
+            newBias[id[n]] = bias[n];
+            for (int e = plan.inStart[n]; e < plan.inStart[n + 1]; e++) {
+                if (cut[e]) continue;
+                source[a] = id[plan.inSource[e]];
+                target[a] = id[n];
+                weight[a++] = plan.weights[e];
+            }
+        }
+
+        ExecutionPlan pruned = ExecutionPlan.compile(plan.inputCount, outputCount, count, source, target, weight, newBias);
+        pruned.setActivation(plan.activation);
+        return new OrganicNN(pruned);
+    }
+}
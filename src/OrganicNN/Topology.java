@@ -0,0 +1,444 @@
+package OrganicNN;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The structure of an organic network: how many input, hidden and output
+ * neurons it has and which axons connect them, without any weights. Neurons are
+ * numbered as in a structure file: the inputs first, then the hidden neurons,
+ * and output i is neuron (neuronCount - i - 1). Axons are kept as two parallel
+ * int arrays, so even million-axon networks cost 8 bytes per axon.
+ *
+ * A topology can be read from the text structure file format, or from a
+ * compact binary format for large networks, or generated (layered,
+ * random-sparse and small-world networks).
+ *
+ * Text format: the first line holds "inputs hidden outputs", followed by one
+ * line per neuron that is not an output, listing the neurons it feeds. The
+ * text parser streams the file byte by byte without creating a String per
+ * line, and reports the line and column of any malformed value.
+ *
+ * <pre>
+ * binary format (little-endian)
+ *   int    magic           "OSTR"
+ *   int    version         1
+ *   int    input count
+ *   int    hidden count
+ *   int    output count
+ *   int    axon count
+ *   int[neuron count + 1]  start of each neuron's outgoing axons
+ *   int[axon count]        target neuron of each axon, grouped by source neuron
+ * </pre>
+ *
+ * @author JAForewit
+ * @see OrganicNN
+ */
+public final class Topology {
+    static final int MAGIC = 0x5254534F;   // "OSTR" in little-endian byte order
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final int inputCount, hiddenCount, outputCount, neuronCount;
+    private int[] source;       // source[axon], ascending
+    private int[] target;       // target[axon]
+    private int axonCount;
+
+    /**
+     * Creates a topology without axons.
+     *
+     * @param inputCount number of input neurons
+     * @param hiddenCount number of hidden neurons
+     * @param outputCount number of output neurons
+     */
+    public Topology(int inputCount, int hiddenCount, int outputCount) {
+        if (inputCount <= 0 || hiddenCount < 0 || outputCount <= 0)
+            throw new IllegalArgumentException("Invalid neuron counts " + inputCount + " " + hiddenCount
+                    + " " + outputCount + ".");
+        this.inputCount = inputCount;
+        this.hiddenCount = hiddenCount;
+        this.outputCount = outputCount;
+        this.neuronCount = inputCount + hiddenCount + outputCount;
+        source = new int[16];
+        target = new int[16];
+    }
+
+    /**
+     * Adds an axon. Axons must be added in order of their source neuron.
+     *
+     * @param from source neuron
+     * @param to target neuron
+     */
+    public void addAxon(int from, int to) {
+        if (from < 0 || from >= neuronCount - outputCount)
+            throw new IllegalArgumentException("Neuron " + from + " can not have outgoing axons.");
+        if (to < inputCount || to >= neuronCount)
+            throw new IllegalArgumentException("Axon " + from + " -> " + to + " does not end at a hidden or output neuron.");
+        if (axonCount > 0 && from < source[axonCount - 1])
+            throw new IllegalArgumentException("Axons must be added in order of their source neuron.");
+        if (axonCount == source.length) {
+            source = Arrays.copyOf(source, axonCount * 2);
+            target = Arrays.copyOf(target, axonCount * 2);
+        }
+        source[axonCount] = from;
+        target[axonCount++] = to;
+    }
+
+    public int getInputCount() { return inputCount; }
+    public int getHiddenCount() { return hiddenCount; }
+    public int getOutputCount() { return outputCount; }
+    public int getNeuronCount() { return neuronCount; }
+    public int getAxonCount() { return axonCount; }
+    public int getSource(int axon) { return source[axon]; }
+    public int getTarget(int axon) { return target[axon]; }
+
+    int[] sources() { return Arrays.copyOf(source, axonCount); }
+    int[] targets() { return Arrays.copyOf(target, axonCount); }
+
+    /**
+     * Generates fully connected layers: every neuron feeds every neuron of the
+     * next layer.
+     *
+     * @param layers neurons per layer, inputs first and outputs last
+     * @return the topology
+     */
+    public static Topology layered(int... layers) {
+        int hidden = 0;
+        for (int l = 1; l < layers.length - 1; l++) hidden += layers[l];
+        Topology topology = new Topology(layers[0], hidden, layers[layers.length - 1]);
+        int first = 0;
+        for (int l = 0; l < layers.length - 1; l++) {
+            int next = first + layers[l];
+            for (int n = first; n < next; n++)
+                for (int t = next; t < next + layers[l + 1]; t++) topology.addAxon(n, t);
+            first = next;
+        }
+        return topology;
+    }
+
+    /**
+     * Generates a random sparse network: every neuron that is not an output
+     * feeds up to fanOut distinct, randomly chosen later neurons.
+     *
+     * @param inputs number of input neurons
+     * @param hidden number of hidden neurons
+     * @param outputs number of output neurons
+     * @param fanOut outgoing axons per neuron
+     * @param seed seed for the random choices
+     * @return the topology
+     */
+    public static Topology randomSparse(int inputs, int hidden, int outputs, int fanOut, long seed) {
+        Topology topology = new Topology(inputs, hidden, outputs);
+        Random random = new Random(seed);
+        int[] chosen = new int[fanOut];
+        for (int n = 0; n < topology.neuronCount - outputs; n++) {
+            int first = Math.max(n + 1, inputs);
+            int count = Math.min(fanOut, topology.neuronCount - first);
+            for (int i = 0; i < count; i++) chosen[i] = pick(random, first, topology.neuronCount, chosen, i);
+            Arrays.sort(chosen, 0, count);
+            for (int i = 0; i < count; i++) topology.addAxon(n, chosen[i]);
+        }
+        return topology;
+    }
+
+    /**
+     * Generates a small-world network (Watts-Strogatz, directed so it stays
+     * acyclic): every neuron feeds the neighbours neurons after it, and each of
+     * those axons is rewired to a random later neuron with the given
+     * probability.
+     *
+     * @param inputs number of input neurons
+     * @param hidden number of hidden neurons
+     * @param outputs number of output neurons
+     * @param neighbours outgoing axons per neuron
+     * @param rewire probability of rewiring each axon
+     * @param seed seed for the random choices
+     * @return the topology
+     */
+    public static Topology smallWorld(int inputs, int hidden, int outputs, int neighbours, double rewire, long seed) {
+        Topology topology = new Topology(inputs, hidden, outputs);
+        Random random = new Random(seed);
+        int[] chosen = new int[neighbours];
+        for (int n = 0; n < topology.neuronCount - outputs; n++) {
+            int first = Math.max(n + 1, inputs);
+            int count = Math.min(neighbours, topology.neuronCount - first);
+            for (int i = 0; i < count; i++) chosen[i] = first + i;
+            // near the outputs every later neuron is already a neighbour, so there is nothing to rewire to
+            boolean full = count == topology.neuronCount - first;
+            for (int i = 0; i < count; i++) {
+                if (random.nextDouble() < rewire && !full) chosen[i] = pick(random, first, topology.neuronCount, chosen, count);
+            }
+            Arrays.sort(chosen, 0, count);
+            for (int i = 0; i < count; i++) topology.addAxon(n, chosen[i]);
+        }
+        return topology;
+    }
+
+    // a random neuron in [from, to) that is not among the first count chosen
+    private static int pick(Random random, int from, int to, int[] chosen, int count) {
+        while (true) {
+            int n = from + random.nextInt(to - from);
+            boolean taken = false;
+            for (int i = 0; i < count && !taken; i++) taken = chosen[i] == n;
+            if (!taken) return n;
+        }
+    }
+
+    /**
+     * Reads a structure file in either format, recognising the binary format by
+     * its magic number.
+     *
+     * @param filename the structure file
+     * @return the topology
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    public static Topology read(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(filename))) {
+            if (Integer.reverseBytes(in.readInt()) == MAGIC) return readBinary(filename);
+        }
+        catch (EOFException e) { /* too short for the binary format */ }
+        return readText(filename);
+    }
+
+    /**
+     * Parses a text structure file.
+     *
+     * @param filename the structure file
+     * @return the topology
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file is malformed, naming the line and column
+     */
+    public static Topology readText(String filename) throws IOException {
+        try (InputStream in = new FileInputStream(filename)) {
+            TextParser parser = new TextParser(filename, in);
+            int inputs = parser.nextInt(-1), hidden = parser.nextInt(-1), outputs = parser.nextInt(-1);
+            parser.endLine();
+            Topology topology;
+            try { topology = new Topology(inputs, hidden, outputs); }
+            catch (IllegalArgumentException e) { throw parser.error(e.getMessage()); }
+
+            // one line of targets per neuron that is not an output
+            int[] seen = new int[topology.neuronCount];
+            Arrays.fill(seen, -1);
+            for (int n = 0; n < topology.neuronCount - outputs; n++) {
+                if (!parser.startLine()) throw parser.error("Expected the axons of neuron " + n + ".");
+                while (parser.hasInt()) {
+                    int t = parser.nextInt(n);
+                    if (t < inputs || t >= topology.neuronCount)
+                        throw parser.tokenError("Neuron " + t + " is not a hidden or output neuron.");
+                    if (t == n) throw parser.tokenError("Neuron " + n + " can not feed itself.");
+                    if (seen[t] == n) throw parser.tokenError("Duplicate axon " + n + " -> " + t + ".");
+                    seen[t] = n;
+                    topology.addAxon(n, t);
+                }
+                parser.endLine();
+            }
+            if (parser.startLine()) throw parser.error("Expected the end of the file.");
+            return topology;
+        }
+    }
+
+    /**
+     * Writes the topology as a text structure file.
+     *
+     * @param filename the structure file, replaced if it exists
+     * @throws IOException if the file can not be written
+     */
+    public void writeText(String filename) throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(filename), 1 << 16)) {
+            out.write(inputCount + " " + hiddenCount + " " + outputCount + "\n");
+            int axon = 0;
+            for (int n = 0; n < neuronCount - outputCount; n++) {
+                for (boolean first = true; axon < axonCount && source[axon] == n; axon++, first = false) {
+                    if (!first) out.write(' ');
+                    out.write(Integer.toString(target[axon]));
+                }
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Reads a binary structure file. The file is memory-mapped and its arrays are
+     * copied out in bulk.
+     *
+     * @param filename the structure file
+     * @return the topology
+     * @throws IOException if the file can not be read or is not a binary structure file
+     */
+    public static Topology readBinary(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) throw new IOException("The file is too short to hold a structure.");
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ORDER);
+            if (map.getInt() != MAGIC) throw new IOException("The file is not a binary structure file.");
+            int version = map.getInt();
+            if (version != VERSION) throw new IOException("Unsupported structure file version " + version + ".");
+            int inputs = map.getInt(), hidden = map.getInt(), outputs = map.getInt(), axons = map.getInt();
+            Topology topology;
+            try { topology = new Topology(inputs, hidden, outputs); }
+            catch (IllegalArgumentException e) { throw new IOException(e.getMessage()); }
+            if (axons < 0 || channel.size() != HEADER_BYTES + 4L * (topology.neuronCount + 1) + 4L * axons)
+                throw new IOException("The structure file header is corrupt.");
+
+            IntBuffer ints = map.asIntBuffer();
+            int[] start = new int[topology.neuronCount + 1];
+            ints.get(start);
+            topology.source = new int[Math.max(1, axons)];
+            topology.target = new int[Math.max(1, axons)];
+            ints.get(topology.target, 0, axons);
+            if (start[0] != 0 || start[topology.neuronCount] != axons)
+                throw new IOException("The structure file axon offsets are corrupt.");
+            for (int n = 0; n < topology.neuronCount; n++) {
+                if (start[n + 1] < start[n] || (n >= topology.neuronCount - outputs && start[n + 1] != start[n]))
+                    throw new IOException("The structure file axon offsets are corrupt.");
+                Arrays.fill(topology.source, start[n], start[n + 1], n);
+            }
+            // the same rules as the text format: no self-axons and no duplicates
+            int[] seen = new int[topology.neuronCount];
+            Arrays.fill(seen, -1);
+            for (int a = 0; a < axons; a++) {
+                int n = topology.source[a], t = topology.target[a];
+                if (t < inputs || t >= topology.neuronCount)
+                    throw new IOException("Axon " + a + " of the structure file is invalid.");
+                if (t == n) throw new IOException("Neuron " + n + " can not feed itself.");
+                if (seen[t] == n) throw new IOException("Duplicate axon " + n + " -> " + t + ".");
+                seen[t] = n;
+            }
+            topology.axonCount = axons;
+            return topology;
+        }
+    }
+
+    /**
+     * Writes the topology as a binary structure file.
+     *
+     * @param filename the structure file, replaced if it exists
+     * @throws IOException if the file can not be written
+     */
+    public void writeBinary(String filename) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 4 * (neuronCount + 1) + 4 * axonCount).order(ORDER);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(inputCount).putInt(hiddenCount).putInt(outputCount)
+                .putInt(axonCount);
+        IntBuffer ints = buffer.asIntBuffer();
+        for (int n = 0, axon = 0; n <= neuronCount; n++) {
+            while (axon < axonCount && source[axon] < n) axon++;
+            ints.put(axon);
+        }
+        ints.put(target, 0, axonCount);
+        buffer.clear();     // the int view does not move the byte buffer's position
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads non-negative integers from a text file in large blocks, keeping track
+     * of the line and column for error messages.
+     */
+    private static final class TextParser {
+        private final String filename;
+        private final InputStream in;
+        private final byte[] block = new byte[1 << 16];
+        private int position, limit;
+        private int line = 1, column = 1;
+        private int tokenColumn = 1;        // column of the last integer read
+
+        TextParser(String filename, InputStream in) {
+            this.filename = filename;
+            this.in = in;
+        }
+
+        // next byte without consuming it, or -1 at the end of the file
+        private int peek() throws IOException {
+            if (position == limit) {
+                limit = in.read(block, 0, block.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return block[position];
+        }
+
+        private void skip() {
+            position++;
+            column++;
+        }
+
+        private void skipSpaces() throws IOException {
+            int c;
+            while ((c = peek()) == ' ' || c == '\t' || c == '\r') skip();
+        }
+
+        // true if another integer follows on this line
+        boolean hasInt() throws IOException {
+            skipSpaces();
+            int c = peek();
+            return c >= '0' && c <= '9';
+        }
+
+        // reads an integer, failing if there is none; neuron is only used in messages (-1 for the header)
+        int nextInt(int neuron) throws IOException {
+            skipSpaces();
+            int c = peek();
+            if (c < '0' || c > '9') {
+                String what = neuron < 0 ? "a neuron count" : "a neuron index for neuron " + neuron;
+                throw error("Expected " + what + " but found " + describe(c) + ".");
+            }
+            tokenColumn = column;
+            long value = 0;
+            while ((c = peek()) >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) throw error("Number too large.");
+                skip();
+            }
+            if (c != -1 && c != ' ' && c != '\t' && c != '\r' && c != '\n')
+                throw error("Unexpected " + describe(c) + ".");
+            return (int) value;
+        }
+
+        // consumes the rest of the line, which must be blank
+        void endLine() throws IOException {
+            skipSpaces();
+            int c = peek();
+            if (c == '\n') {
+                position++;
+                line++;
+                column = 1;
+            }
+            else if (c != -1) throw error("Unexpected " + describe(c) + ".");
+        }
+
+        // true if there is another line (a trailing newline does not count)
+        boolean startLine() throws IOException { return peek() != -1; }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(filename + ":" + line + ":" + column + ": " + message);
+        }
+
+        // an error about the last integer read
+        IllegalArgumentException tokenError(String message) {
+            return new IllegalArgumentException(filename + ":" + line + ":" + tokenColumn + ": " + message);
+        }
+
+        private static String describe(int c) {
+            if (c == -1) return "the end of the file";
+            if (c == '\n') return "the end of the line";
+            return "'" + (char) c + "'";
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package Replay;
+
+import FlappyBird.Simulation;
+
+/**
+ * Turns a game state into network inputs. Replays can regenerate training data
+ * under any encoder, not just the one used while playing.
+ *
+ * @author JAForewit
+ * @see ReplayEngine
+ */
+public interface FeatureEncoder {
+
+    /**
+     * The encoding used by GamePanel and the controllers (Simulation.gatherInputs).
+     */
+    FeatureEncoder DEFAULT = new FeatureEncoder() {
+        @Override
+        public int size() { return Simulation.INPUT_SIZE; }
+
+        @Override
+        public void encode(Simulation sim, double[] features) { sim.gatherInputs(features); }
+    };
+
+    /**
+     * Returns the number of features written by encode.
+     *
+     * @return number of features
+     */
+    int size();
+
+    /**
+     * Writes the features of the current state.
+     *
+     * @param sim the game, before its next step
+     * @param features array receiving size() values
+     */
+    void encode(Simulation sim, double[] features);
+}
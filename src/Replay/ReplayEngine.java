@@ -0,0 +1,100 @@
+package Replay;
+
+import FlappyBird.Controller;
+import FlappyBird.Simulation;
+import TrainSet.TrainSet;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Re-runs recorded sessions headlessly, as fast as the CPU allows. Every game
+ * is replayed from its seed with its recorded jumps, which reproduces it tick
+ * for tick.
+ *
+ * @author JAForewit
+ * @see SessionLog
+ */
+public class ReplayEngine {
+    private static final Logger LOGGER = Logger.getLogger( ReplayEngine.class.getName() );
+
+    /**
+     * Called for every replayed tick, before the step.
+     */
+    public interface TickListener {
+        void tick(Simulation sim, boolean jump);
+    }
+
+    private ReplayEngine() {}
+
+    /**
+     * Replays every game of a session.
+     *
+     * @param log the recorded session
+     * @param listener called before every step, with whether the bird jumps in it
+     * @return number of games whose replay did not end where the recording did
+     */
+    public static int replay(SessionLog log, TickListener listener) {
+        Simulation sim = new Simulation(0);
+        int mismatches = 0;
+        for (int g = 0; g < log.size(); g++) {
+            SessionLog.Game game = log.get(g);
+            sim.reset(game.seed);
+            int next = 0;
+            for (int tick = 0; tick < game.length; tick++) {
+                boolean jump = next < game.getJumpCount() && game.getJump(next) == tick;
+                if (jump) next++;
+                listener.tick(sim, jump);
+                if (jump) sim.jump();
+                if (!sim.step() && tick + 1 < game.length) break;
+            }
+            if (sim.getTime() != game.length) {
+                LOGGER.log(Level.SEVERE, "Game " + g + " of the replay ended at tick " + sim.getTime()
+                        + " instead of " + game.length + ".");
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Regenerates training data from a session: one sample per tick, whose
+     * inputs are the encoded state before the step and whose target is 1 if
+     * the bird jumped in that step, 0 otherwise.
+     *
+     * @param log the recorded session
+     * @param encoder the feature encoding
+     * @return the training data
+     */
+    public static TrainSet toTrainSet(SessionLog log, FeatureEncoder encoder) {
+        TrainSet set = new TrainSet(encoder.size(), 1);
+        double[] features = new double[encoder.size()];
+        double[] jumped = new double[1], idle = new double[1];
+        jumped[0] = 1;
+        replay(log, (sim, jump) -> {
+            encoder.encode(sim, features);
+            set.addData(features, jump ? jumped : idle);
+        });
+        return set;
+    }
+
+    /**
+     * Plays every recorded game's pipe sequence with a controller instead of the
+     * recorded jumps, so controllers can be compared on identical games.
+     *
+     * @param log the recorded session
+     * @param controller the player
+     * @param maxTicks ticks after which a game is stopped
+     * @return distance flown in each game
+     */
+    public static int[] play(SessionLog log, Controller controller, int maxTicks) {
+        Simulation sim = new Simulation(0);
+        int[] distances = new int[log.size()];
+        for (int g = 0; g < log.size(); g++) {
+            sim.reset(log.get(g).seed);
+            while (sim.getTime() < maxTicks && sim.step(controller)) ;
+            distances[g] = sim.getDistance();
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,127 @@
+package Replay;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A recorded play session: for every game, the seed of its pipe generator, its
+ * length in ticks and the ticks at which the bird jumped. The game rules are
+ * deterministic, so this is enough to replay every game exactly (see
+ * ReplayEngine).
+ *
+ * File format (big-endian):
+ *   int magic "FBRL", int version
+ *   per game: long seed, jump ticks as varint deltas (tick - previous jump tick,
+ *   starting from -1, so every delta is at least 1), a 0 delta, varint length
+ *
+ * An hour of human play (216,000 ticks, around one jump a second) takes a few
+ * kilobytes.
+ *
+ * @author JAForewit
+ * @see SessionRecorder
+ * @see ReplayEngine
+ */
+public class SessionLog {
+    static final int MAGIC = 0x4642524C;   // "FBRL"
+    static final int VERSION = 1;
+
+    private final List<Game> games = new ArrayList<>();
+
+    /**
+     * One recorded game.
+     */
+    public static final class Game {
+        public final long seed;         // seed passed to Simulation.reset(long)
+        public final int length;        // ticks stepped before the game ended
+        private final int[] jumps;      // ticks at which the bird jumped, ascending
+
+        public Game(long seed, int length, int[] jumps) {
+            this.seed = seed;
+            this.length = length;
+            this.jumps = jumps.clone();
+        }
+
+        public int getJumpCount() { return jumps.length; }
+        public int getJump(int index) { return jumps[index]; }
+    }
+
+    public void add(Game game) { games.add(game); }
+    public int size() { return games.size(); }
+    public Game get(int index) { return games.get(index); }
+    public List<Game> getGames() { return Collections.unmodifiableList(games); }
+
+    /**
+     * Returns the total number of ticks in every game.
+     *
+     * @return total ticks
+     */
+    public long getTicks() {
+        long ticks = 0;
+        for (Game game : games) ticks += game.length;
+        return ticks;
+    }
+
+    /**
+     * Reads a session log, including the games of an unfinished recording.
+     *
+     * @param filename the log file
+     * @return the recorded games
+     * @throws IOException if the file can not be read or is not a session log
+     */
+    public static SessionLog read(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC) throw new IOException(filename + " is not a session log.");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported session log version " + version + ".");
+
+            SessionLog log = new SessionLog();
+            int[] jumps = new int[64];
+            while (true) {
+                long seed;
+                try { seed = in.readLong(); }
+                catch (EOFException e) { return log; }
+
+                int count = 0, tick = -1;
+                for (int delta = readVarint(in); delta != 0; delta = readVarint(in)) {
+                    if (count == jumps.length) jumps = Arrays.copyOf(jumps, count * 2);
+                    tick += delta;
+                    jumps[count++] = tick;
+                }
+                log.add(new Game(seed, readVarint(in), Arrays.copyOf(jumps, count)));
+            }
+        }
+    }
+
+    /**
+     * Writes every game to a new log file.
+     *
+     * @param filename the log file
+     * @throws IOException if the file can not be written
+     */
+    public void write(String filename) throws IOException {
+        try (SessionRecorder recorder = SessionRecorder.create(filename)) {
+            for (Game game : games) recorder.write(game);
+        }
+    }
+
+    static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in session log.");
+    }
+}
@@ -0,0 +1,102 @@
+package Replay;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Records a play session to a SessionLog file while it is played. Call
+ * beginGame when a game starts, jump whenever the bird jumps, and endGame when
+ * the game is over; each finished game is written and flushed right away, so
+ * the file holds every finished game even if the program is killed.
+ *
+ * A recorder is used by the simulation thread only.
+ *
+ * @author JAForewit
+ * @see SessionLog
+ */
+public class SessionRecorder implements Closeable {
+    private final DataOutputStream out;
+    private boolean recording;
+    private long seed;
+    private int[] jumps = new int[256];
+    private int jumpCount;
+
+    private SessionRecorder(DataOutputStream out) { this.out = out; }
+
+    /**
+     * Creates a new, empty log file, replacing any existing file.
+     *
+     * @param filename the log file
+     * @return a recorder writing to the file
+     * @throws IOException if the file can not be created
+     */
+    public static SessionRecorder create(String filename) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+        out.writeInt(SessionLog.MAGIC);
+        out.writeInt(SessionLog.VERSION);
+        out.flush();
+        return new SessionRecorder(out);
+    }
+
+    /**
+     * Starts recording a game.
+     *
+     * @param seed the seed passed to Simulation.reset(long) for this game
+     */
+    public void beginGame(long seed) {
+        this.seed = seed;
+        jumpCount = 0;
+        recording = true;
+    }
+
+    /**
+     * Records a jump that takes effect in the step at the given tick. Several
+     * jumps before the same step count once. Ignored until a game has begun.
+     *
+     * @param tick Simulation.getTime() before the step
+     */
+    public void jump(int tick) {
+        if (!recording || (jumpCount > 0 && jumps[jumpCount - 1] >= tick)) return;
+        if (jumpCount == jumps.length) jumps = Arrays.copyOf(jumps, jumpCount * 2);
+        jumps[jumpCount++] = tick;
+    }
+
+    /**
+     * Writes the current game. Jumps at or after its last tick are dropped.
+     *
+     * @param length number of ticks stepped (Simulation.getTime())
+     * @throws IOException if the game can not be written
+     */
+    public void endGame(int length) throws IOException {
+        if (!recording) return;
+        recording = false;
+        while (jumpCount > 0 && jumps[jumpCount - 1] >= length) jumpCount--;
+        write(seed, length, jumps, jumpCount);
+    }
+
+    void write(SessionLog.Game game) throws IOException {
+        int[] ticks = new int[game.getJumpCount()];
+        for (int i = 0; i < ticks.length; i++) ticks[i] = game.getJump(i);
+        write(game.seed, game.length, ticks, ticks.length);
+    }
+
+    private void write(long seed, int length, int[] jumps, int count) throws IOException {
+        out.writeLong(seed);
+        int previous = -1;
+        for (int i = 0; i < count; i++) {
+            SessionLog.writeVarint(out, jumps[i] - previous);
+            previous = jumps[i];
+        }
+        SessionLog.writeVarint(out, 0);
+        SessionLog.writeVarint(out, length);
+        out.flush();
+    }
+
+    /**
+     * Closes the file. A game in progress is not written.
+     *
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException { out.close(); }
+}
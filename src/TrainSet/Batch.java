@@ -0,0 +1,118 @@
+package TrainSet;
+
+import java.util.Random;
+
+/**
+ * A reusable view of a subset of a TrainSet. A batch only stores the indices of
+ * its samples; the data is read straight from the TrainSet's storage.
+ *
+ * @author JAForewit
+ * @version 1.0 02/08/2018
+ * @see TrainSet#extractBatch(int)
+ */
+public class Batch {
+    private final TrainSet set;
+    private int[] indices = new int[0];
+    private int size;
+
+    /**
+     * Creates an empty batch over a TrainSet.
+     *
+     * @param set the TrainSet holding the data
+     */
+    public Batch(TrainSet set) {
+        this.set = set;
+    }
+
+    /**
+     * Fills the batch with randomly selected samples (with replacement).
+     *
+     * @param size number of samples
+     * @param random source of the random indices
+     */
+    public void sample(int size, Random random) {
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++) indices[i] = random.nextInt(set.size());
+        this.size = size;
+    }
+
+    /**
+     * Fills the batch with every sample of the TrainSet in order.
+     */
+    public void all() {
+        ensureCapacity(set.size());
+        for (int i = 0; i < set.size(); i++) indices[i] = i;
+        size = set.size();
+    }
+
+    /**
+     * Returns the number of samples in the batch.
+     *
+     * @return size of the batch
+     */
+    public int size() { return size; }
+
+    /**
+     * Returns the TrainSet index of a sample in the batch.
+     *
+     * @param index index within the batch
+     * @return index within the TrainSet
+     */
+    public int index(int index) { return indices[index]; }
+
+    /**
+     * Copies the input data of a sample in the batch into an array.
+     *
+     * @param index index within the batch
+     * @param dest array receiving the input values
+     * @param offset position in dest of the first value
+     */
+    public void getInput(int index, double[] dest, int offset) { set.getInput(indices[index], dest, offset); }
+
+    /**
+     * Copies the target data of a sample in the batch into an array.
+     *
+     * @param index index within the batch
+     * @param dest array receiving the target values
+     * @param offset position in dest of the first value
+     */
+    public void getTarget(int index, double[] dest, int offset) { set.getTarget(indices[index], dest, offset); }
+
+    /**
+     * Copies the input data of a sample in the batch into a float array.
+     *
+     * @param index index within the batch
+     * @param dest array receiving the input values
+     * @param offset position in dest of the first value
+     */
+    public void getInput(int index, float[] dest, int offset) { set.getInput(indices[index], dest, offset); }
+
+    /**
+     * Copies the target data of a sample in the batch into a float array.
+     *
+     * @param index index within the batch
+     * @param dest array receiving the target values
+     * @param offset position in dest of the first value
+     */
+    public void getTarget(int index, float[] dest, int offset) { set.getTarget(indices[index], dest, offset); }
+
+    /**
+     * Returns a copy of the input data of a sample in the batch.
+     *
+     * @param index index within the batch
+     * @return input array
+     */
+    public double[] getInput(int index) { return set.getInput(indices[index]); }
+
+    /**
+     * Returns a copy of the target data of a sample in the batch.
+     *
+     * @param index index within the batch
+     * @return target array
+     */
+    public double[] getTarget(int index) { return set.getTarget(indices[index]); }
+
+    private void ensureCapacity(int size) {
+        if (indices.length < size) indices = new int[size];
+    }
+}
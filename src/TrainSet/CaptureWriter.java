@@ -0,0 +1,171 @@
+package TrainSet;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams samples captured by a game thread to a data file without allocating
+ * or blocking on that thread. Samples go into a SampleRing, and a background
+ * thread drains the ring into a TrainSetWriter, so a capture session of any
+ * length runs in constant memory. As in the ring, the newest sample can still be
+ * relabelled (a jump is only seen on the tick after the state that caused it).
+ *
+ * On the way to the file the writer thread filters the samples in a single
+ * pass: the first and last trim samples of the session are dropped, and only
+ * one in idleKeep samples whose targets are all 0 is kept, so the rare jump
+ * samples are not swamped by idle ones.
+ *
+ * @author JAForewit
+ * @see TrainSetWriter
+ */
+public class CaptureWriter {
+    private static final Logger LOGGER = Logger.getLogger( CaptureWriter.class.getName() );
+    private static final long IDLE_NANOS = 1000000;
+
+    private final TrainSetWriter writer;
+    private final SampleRing ring;
+    private final int INPUT_SIZE, TARGET_SIZE, RECORD;
+    private final Thread thread;
+    private volatile boolean finished;
+
+    // writer thread only
+    private final int trim, idleKeep;
+    private final double[] record;
+    private final double[] delay;                           // the last trim samples, not yet known to be kept
+    private final double[] inputs, targets;
+    private long seen, idle;
+    private volatile long written;
+
+    /**
+     * Starts a capture into a data file.
+     *
+     * @param writer the data file, closed when the capture finishes
+     * @param inputSize number of input values per sample
+     * @param targetSize number of target values per sample
+     * @param capacity samples the ring can hold (rounded up to a power of two)
+     * @param trim samples dropped from the start and from the end of the session
+     * @param idleKeep keep one in this many samples whose targets are all 0
+     */
+    public CaptureWriter(TrainSetWriter writer, int inputSize, int targetSize, int capacity, int trim, int idleKeep) {
+        this.writer = writer;
+        this.ring = new SampleRing(inputSize, targetSize, capacity);
+        this.INPUT_SIZE = inputSize;
+        this.TARGET_SIZE = targetSize;
+        this.RECORD = inputSize + targetSize;
+        this.trim = trim;
+        this.idleKeep = Math.max(1, idleKeep);
+        this.record = new double[RECORD];
+        this.delay = new double[Math.max(1, trim) * RECORD];
+        this.inputs = new double[inputSize];
+        this.targets = new double[targetSize];
+
+        thread = new Thread(this::drain, "CaptureWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Adds a sample. Only the producer thread may call this; it never blocks or
+     * allocates.
+     *
+     * @param inputs input neuron values
+     * @param targets target output neuron values
+     * @return false if the ring was full and the sample was dropped
+     */
+    public boolean add(double[] inputs, double[] targets) { return ring.add(inputs, targets); }
+
+    /**
+     * Changes a target of the newest sample, if it has not been dropped.
+     *
+     * @param target index of the target value
+     * @param value new target value
+     */
+    public void labelLast(int target, double value) { ring.labelLast(target, value); }
+
+    /**
+     * Publishes the newest sample and lets the writer thread finish the file.
+     * Only the producer thread may call this.
+     */
+    public void finish() {
+        ring.publish();
+        finished = true;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Waits until the writer thread has written and closed the file.
+     */
+    public void awaitClose() {
+        try { thread.join(); }
+        catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    /**
+     * Waits a limited time for the writer thread to write and close the file.
+     *
+     * @param millis longest time to wait
+     * @return true if the file is closed
+     */
+    public boolean awaitClose(long millis) {
+        try { thread.join(millis); }
+        catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+        return !thread.isAlive();
+    }
+
+    public long getDropped() { return ring.getDropped(); }
+    public long getWritten() { return written; }
+
+    // writer thread: drains the ring until finished
+    private void drain() {
+        try {
+            while (true) {
+                boolean done = finished;
+                if (!ring.poll(record, 0)) {
+                    if (done) break;
+                    LockSupport.parkNanos(IDLE_NANOS);
+                    continue;
+                }
+                accept();
+            }
+        }
+        catch(IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not write captured data, capture stopped.");
+            e.printStackTrace();
+        }
+        finally {
+            try { writer.close(); }
+            catch(IOException e) {
+                LOGGER.log(Level.SEVERE, "Could not close the capture file.");
+                e.printStackTrace();
+            }
+        }
+        if (getDropped() > 0) LOGGER.log(Level.WARNING, getDropped() + " captured samples were dropped (ring full).");
+    }
+
+    // trims and balances the polled sample, writing it if kept
+    private void accept() throws IOException {
+        long n = seen++;
+        if (n < trim) return;
+        if (trim == 0) {
+            write(record, 0);
+            return;
+        }
+        // the sample leaving the delay line is at least trim samples from the end
+        int slot = (int) ((n - trim) % trim) * RECORD;
+        if (n >= 2L * trim) write(delay, slot);
+        System.arraycopy(record, 0, delay, slot, RECORD);
+    }
+
+    private void write(double[] source, int offset) throws IOException {
+        boolean isIdle = true;
+        for (int i = 0; i < TARGET_SIZE; i++) isIdle &= source[offset + INPUT_SIZE + i] == 0;
+        if (isIdle && idle++ % idleKeep != 0) return;
+
+        System.arraycopy(source, offset, inputs, 0, INPUT_SIZE);
+        System.arraycopy(source, offset + INPUT_SIZE, targets, 0, TARGET_SIZE);
+        writer.append(inputs, targets);
+        written++;
+    }
+}
@@ -0,0 +1,135 @@
+package TrainSet;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A read-only TrainSet backed by a memory-mapped binary data file. Nothing is
+ * read up front: the operating system pages samples in as they are used, so a
+ * data set can be larger than the heap and opening one takes constant time.
+ * Reads do not modify any state, so one MappedTrainSet can be shared by
+ * several training threads.
+ *
+ * Files over 2GB are mapped as several regions, each holding a whole number of
+ * samples.
+ *
+ * @author JAForewit
+ * @version 1.0 02/08/2018
+ * @see TrainSetFile
+ */
+public class MappedTrainSet extends TrainSet {
+    private static final Logger LOGGER = Logger.getLogger( MappedTrainSet.class.getName() );
+
+    private final int RECORD_SIZE;          // doubles per sample
+    private final int REGION_SAMPLES;       // samples per mapped region
+    private final DoubleBuffer[] regions;
+    private final int size;
+
+    MappedTrainSet(String filename) throws IOException {
+        this(filename, readSizes(filename));
+    }
+
+    private MappedTrainSet(String filename, int[] sizes) throws IOException {
+        super(sizes[0], sizes[1]);
+        RECORD_SIZE = sizes[0] + sizes[1];
+        REGION_SAMPLES = Integer.MAX_VALUE / (8 * RECORD_SIZE);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long count = TrainSetFile.readHeader(channel, sizes);
+            long available = (channel.size() - TrainSetFile.HEADER_BYTES) / (8L * RECORD_SIZE);
+            if (available < count) throw new IOException("The data file is missing "
+                    + (count - available) + " of its " + count + " samples.");
+            if (count > Integer.MAX_VALUE) throw new IOException("The data file holds more than "
+                    + Integer.MAX_VALUE + " samples.");
+            size = (int) count;
+
+            regions = new DoubleBuffer[(size + REGION_SAMPLES - 1) / REGION_SAMPLES];
+            for (int r = 0; r < regions.length; r++) {
+                long first = (long) r * REGION_SAMPLES;
+                long samples = Math.min(REGION_SAMPLES, size - first);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+                        TrainSetFile.HEADER_BYTES + first * 8 * RECORD_SIZE, samples * 8 * RECORD_SIZE);
+                regions[r] = region.order(TrainSetFile.ORDER).asDoubleBuffer();
+            }
+        }
+    }
+
+    private static int[] readSizes(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            int[] sizes = new int[2];
+            TrainSetFile.readHeader(channel, sizes);
+            return sizes;
+        }
+    }
+
+    /**
+     * Mapped data files are read-only; append with a TrainSetWriter instead.
+     */
+    @Override
+    public void addData(double[] inputs, double[] targets) {
+        LOGGER.log(Level.SEVERE, "Can not add data to a memory-mapped TrainSet. Use a TrainSetWriter.");
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double[] getInput(int index) {
+        if(index < 0 || index >= size()) return null;
+        double[] input = new double[getINPUT_SIZE()];
+        getInput(index, input, 0);
+        return input;
+    }
+
+    @Override
+    public double[] getTarget(int index) {
+        if(index < 0 || index >= size()) return null;
+        double[] target = new double[getTARGET_SIZE()];
+        getTarget(index, target, 0);
+        return target;
+    }
+
+    @Override
+    public void getInput(int index, double[] dest, int offset) {
+        read(index, 0, getINPUT_SIZE(), dest, offset);
+    }
+
+    @Override
+    public void getTarget(int index, double[] dest, int offset) {
+        read(index, getINPUT_SIZE(), getTARGET_SIZE(), dest, offset);
+    }
+
+    @Override
+    public void getInput(int index, float[] dest, int offset) {
+        read(index, 0, getINPUT_SIZE(), dest, offset);
+    }
+
+    @Override
+    public void getTarget(int index, float[] dest, int offset) {
+        read(index, getINPUT_SIZE(), getTARGET_SIZE(), dest, offset);
+    }
+
+    // copies count values of a sample as floats
+    private void read(int index, int from, int count, float[] dest, int offset) {
+        if(index < 0 || index >= size()) throw new IndexOutOfBoundsException("Sample " + index + " of " + size());
+        DoubleBuffer region = regions[index / REGION_SAMPLES];
+        int position = (index % REGION_SAMPLES) * RECORD_SIZE + from;
+        for (int i = 0; i < count; i++) dest[offset + i] = (float) region.get(position + i);
+    }
+
+    // copies count values of a sample, starting at a position within its record
+    private void read(int index, int from, int count, double[] dest, int offset) {
+        if(index < 0 || index >= size()) throw new IndexOutOfBoundsException("Sample " + index + " of " + size());
+        DoubleBuffer region = regions[index / REGION_SAMPLES];
+        int position = (index % REGION_SAMPLES) * RECORD_SIZE + from;
+        for (int i = 0; i < count; i++) dest[offset + i] = region.get(position + i);
+    }
+}
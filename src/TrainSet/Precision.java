@@ -0,0 +1,13 @@
+package TrainSet;
+
+/**
+ * Floating point precision used to store values. FLOAT halves the memory (and
+ * memory traffic) of DOUBLE at the cost of about 7 significant digits.
+ *
+ * @author JAForewit
+ * @version 1.0 02/08/2018
+ */
+public enum Precision {
+    DOUBLE,
+    FLOAT
+}
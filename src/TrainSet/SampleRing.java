@@ -0,0 +1,102 @@
+package TrainSet;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-capacity ring buffer of samples stored as primitives, passed from one
+ * producer thread to one consumer thread without locks or allocation.
+ *
+ * The newest sample stays unpublished until the next one is added (or
+ * publish() is called), so its targets can still be changed with labelLast().
+ * When the ring is full, new samples are dropped and counted rather than making
+ * the producer wait.
+ *
+ * @author JAForewit
+ * @see CaptureWriter
+ */
+public final class SampleRing {
+    private final int INPUT_SIZE, TARGET_SIZE, RECORD;
+    private final int mask;
+    private final double[] ring;                            // ring[slot * RECORD + value]
+    private final AtomicLong head = new AtomicLong();       // next sample to consume
+    private final AtomicLong tail = new AtomicLong();       // end of the published samples
+    private volatile long dropped;
+    private boolean pending;                                // producer: slot tail holds an unpublished sample
+
+    /**
+     * Creates an empty ring.
+     *
+     * @param inputSize number of input values per sample
+     * @param targetSize number of target values per sample
+     * @param capacity samples the ring can hold (rounded up to a power of two)
+     */
+    public SampleRing(int inputSize, int targetSize, int capacity) {
+        this.INPUT_SIZE = inputSize;
+        this.TARGET_SIZE = targetSize;
+        this.RECORD = inputSize + targetSize;
+        int slots = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = slots - 1;
+        this.ring = new double[slots * RECORD];
+    }
+
+    /**
+     * Adds a sample. Producer thread only; never blocks or allocates.
+     *
+     * @param inputs input neuron values
+     * @param targets target output neuron values
+     * @return false if the ring was full and the sample was dropped
+     */
+    public boolean add(double[] inputs, double[] targets) {
+        publish();
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped++;
+            return false;
+        }
+        int offset = (int) (t & mask) * RECORD;
+        System.arraycopy(inputs, 0, ring, offset, INPUT_SIZE);
+        System.arraycopy(targets, 0, ring, offset + INPUT_SIZE, TARGET_SIZE);
+        pending = true;
+        return true;
+    }
+
+    /**
+     * Changes a target of the newest sample, if it is not yet published.
+     * Producer thread only.
+     *
+     * @param target index of the target value
+     * @param value new target value
+     */
+    public void labelLast(int target, double value) {
+        if (pending) ring[(int) (tail.get() & mask) * RECORD + INPUT_SIZE + target] = value;
+    }
+
+    /**
+     * Makes the newest sample visible to the consumer. Producer thread only.
+     */
+    public void publish() {
+        if (pending) {
+            tail.lazySet(tail.get() + 1);
+            pending = false;
+        }
+    }
+
+    /**
+     * Removes the oldest published sample. Consumer thread only.
+     *
+     * @param record receives the inputs followed by the targets
+     * @param offset position in record
+     * @return false if there was no published sample
+     */
+    public boolean poll(double[] record, int offset) {
+        long h = head.get();
+        if (h == tail.get()) return false;
+        System.arraycopy(ring, (int) (h & mask) * RECORD, record, offset, RECORD);
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    public int getINPUT_SIZE() { return INPUT_SIZE; }
+    public int getTARGET_SIZE() { return TARGET_SIZE; }
+    public long getDropped() { return dropped; }
+}
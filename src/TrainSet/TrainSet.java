@@ -1,22 +1,31 @@
-
 package TrainSet;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Random;
 
 /**
  * Datatype used to store inputs and targets for training a neural network.
+ * Samples are stored column by column in two contiguous arrays (one for the
+ * inputs and one for the targets) which grow as data is added, so a sample
+ * costs no more memory than its values. Values are stored as doubles unless
+ * Precision.FLOAT is chosen at construction; the API is the same either way.
  *
  * @author Luecx
  * @author JAForewit
- * @version 1.1 02/08/2018
+ * @version 1.2 02/08/2018
  */
 public class TrainSet {
+    private static final int INITIAL_CAPACITY = 16;
     private final int INPUT_SIZE;
     private final int TARGET_SIZE;
-    //double[][] <- index1: 0 = input, 1 = output || index2: index of element
-    private ArrayList<double[][]> data = new ArrayList<>();
+    private final Precision PRECISION;
+    private double[] inputs;    // inputs[index * INPUT_SIZE + element]
+    private double[] targets;   // targets[index * TARGET_SIZE + element]
+    private float[] floatInputs;    // used instead of inputs with Precision.FLOAT
+    private float[] floatTargets;   // used instead of targets with Precision.FLOAT
+    private int size;
+    private final Random random = new Random();
+    private Batch batch;
 
     /**
      * Sets the sizes for input and target (output) training data.
@@ -25,40 +34,73 @@ public class TrainSet {
      * @param OUTPUT_SIZE number of output neurons
      */
     public TrainSet(int INPUT_SIZE, int OUTPUT_SIZE) {
+        this(INPUT_SIZE, OUTPUT_SIZE, Precision.DOUBLE);
+    }
+
+    /**
+     * Sets the sizes for input and target (output) training data and the
+     * precision the values are stored with.
+     *
+     * @param INPUT_SIZE number of input neurons
+     * @param OUTPUT_SIZE number of output neurons
+     * @param precision precision of the stored values
+     */
+    public TrainSet(int INPUT_SIZE, int OUTPUT_SIZE, Precision precision) {
         this.INPUT_SIZE = INPUT_SIZE;
         this.TARGET_SIZE = OUTPUT_SIZE;
+        this.PRECISION = precision;
+        if (precision == Precision.FLOAT) {
+            floatInputs = new float[INITIAL_CAPACITY * INPUT_SIZE];
+            floatTargets = new float[INITIAL_CAPACITY * TARGET_SIZE];
+        } else {
+            inputs = new double[INITIAL_CAPACITY * INPUT_SIZE];
+            targets = new double[INITIAL_CAPACITY * TARGET_SIZE];
+        }
     }
 
     /**
-     * Adds a set of input and target data to the training set.
+     * Adds a set of input and target data to the training set. The values are
+     * copied, so the arrays can be reused by the caller.
      *
      * @param inputs input neuron values
      * @param targets target output neuron values
      */
     public void addData(double[] inputs, double[] targets) {
         if(inputs.length != INPUT_SIZE || targets.length != TARGET_SIZE) return;
-        data.add(new double[][]{inputs, targets});
+        if(PRECISION == Precision.FLOAT) {
+            if(size * INPUT_SIZE == floatInputs.length || size * TARGET_SIZE == floatTargets.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+                floatInputs = Arrays.copyOf(floatInputs, capacity * INPUT_SIZE);
+                floatTargets = Arrays.copyOf(floatTargets, capacity * TARGET_SIZE);
+            }
+            for (int i = 0; i < INPUT_SIZE; i++) floatInputs[size * INPUT_SIZE + i] = (float) inputs[i];
+            for (int i = 0; i < TARGET_SIZE; i++) floatTargets[size * TARGET_SIZE + i] = (float) targets[i];
+        } else {
+            if(size * INPUT_SIZE == this.inputs.length || size * TARGET_SIZE == this.targets.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+                this.inputs = Arrays.copyOf(this.inputs, capacity * INPUT_SIZE);
+                this.targets = Arrays.copyOf(this.targets, capacity * TARGET_SIZE);
+            }
+            System.arraycopy(inputs, 0, this.inputs, size * INPUT_SIZE, INPUT_SIZE);
+            System.arraycopy(targets, 0, this.targets, size * TARGET_SIZE, TARGET_SIZE);
+        }
+        size++;
     }
 
     /**
-     * Generates a random subset of the training data.
+     * Selects a random subset of the training data. The returned Batch is a view
+     * of this TrainSet's storage and is reused (and overwritten) by the next call,
+     * so extracting a batch does not allocate. Not thread-safe; concurrent trainers
+     * should each use their own Batch and Random.
      *
-     * @param size size of the subset
-     * @return a new TrainSet randomly selected from the training data
+     * @param size size of the subset, or a value out of range for the whole set
+     * @return a view of randomly selected training data
      */
-    public TrainSet extractBatch(int size) {
-        if(size > 0 && size <= this.size()) {
-            TrainSet set = new TrainSet(INPUT_SIZE, TARGET_SIZE);
-
-            Integer[] ids = new Integer[size];
-            Random r = new Random();
-            for (int i = 0; i < size; i++) ids[i] = r.nextInt(this.size());
-
-            for(Integer i:ids) {
-                set.addData(this.getInput(i),this.getTarget(i));
-            }
-            return set;
-        }else return this;
+    public Batch extractBatch(int size) {
+        if(batch == null) batch = new Batch(this);
+        if(size > 0 && size <= this.size()) batch.sample(size, random);
+        else batch.all();
+        return batch;
     }
 
     /**
@@ -67,13 +109,12 @@ public class TrainSet {
      * @return a String of the training data
      */
     public String toString() {
-        String s = "TrainSet ["+INPUT_SIZE+ " ; "+ TARGET_SIZE +"]\n";
-        int index = 0;
-        for(double[][] r:data) {
-            s += index +":   "+Arrays.toString(r[0]) +"  >-||-<  "+Arrays.toString(r[1]) +"\n";
-            index++;
+        StringBuilder s = new StringBuilder("TrainSet ["+INPUT_SIZE+ " ; "+ TARGET_SIZE +"]\n");
+        for(int index = 0; index < size(); index++) {
+            s.append(index).append(":   ").append(Arrays.toString(getInput(index)))
+                    .append("  >-||-<  ").append(Arrays.toString(getTarget(index))).append("\n");
         }
-        return s;
+        return s.toString();
     }
 
     /**
@@ -83,33 +124,113 @@ public class TrainSet {
      * @return size of the training data
      */
     public int size() {
-        return data.size();
+        return size;
     }
 
     /**
-     * Returns the input data at a given index of the training data
+     * Returns a copy of the input data at a given index of the training data
      *
      * @param index index for the requested data
      * @return input array
      */
     public double[] getInput(int index) {
-        if(index >= 0 && index < size())
-            return data.get(index)[0];
+        if(index >= 0 && index < size()) {
+            double[] input = new double[INPUT_SIZE];
+            getInput(index, input, 0);
+            return input;
+        }
         else return null;
     }
 
     /**
-     * Returns the target data at a given index of the training data
+     * Returns a copy of the target data at a given index of the training data
      *
      * @param index index for the requested data
      * @return target array
      */
     public double[] getTarget(int index) {
-        if(index >= 0 && index < size())
-            return data.get(index)[1];
+        if(index >= 0 && index < size()) {
+            double[] target = new double[TARGET_SIZE];
+            getTarget(index, target, 0);
+            return target;
+        }
         else return null;
     }
 
+    /**
+     * Copies the input data at a given index into an array without allocating.
+     *
+     * @param index index for the requested data
+     * @param dest array receiving the INPUT_SIZE input values
+     * @param offset position in dest of the first value
+     * @throws IndexOutOfBoundsException if index is not between 0 and size() - 1
+     */
+    public void getInput(int index, double[] dest, int offset) {
+        checkIndex(index);
+        if(PRECISION == Precision.FLOAT) {
+            for (int i = 0; i < INPUT_SIZE; i++) dest[offset + i] = floatInputs[index * INPUT_SIZE + i];
+        }
+        else System.arraycopy(inputs, index * INPUT_SIZE, dest, offset, INPUT_SIZE);
+    }
+
+    /**
+     * Copies the target data at a given index into an array without allocating.
+     *
+     * @param index index for the requested data
+     * @param dest array receiving the TARGET_SIZE target values
+     * @param offset position in dest of the first value
+     * @throws IndexOutOfBoundsException if index is not between 0 and size() - 1
+     */
+    public void getTarget(int index, double[] dest, int offset) {
+        checkIndex(index);
+        if(PRECISION == Precision.FLOAT) {
+            for (int i = 0; i < TARGET_SIZE; i++) dest[offset + i] = floatTargets[index * TARGET_SIZE + i];
+        }
+        else System.arraycopy(targets, index * TARGET_SIZE, dest, offset, TARGET_SIZE);
+    }
+
+    /**
+     * Copies the input data at a given index into a float array without allocating.
+     *
+     * @param index index for the requested data
+     * @param dest array receiving the INPUT_SIZE input values
+     * @param offset position in dest of the first value
+     * @throws IndexOutOfBoundsException if index is not between 0 and size() - 1
+     */
+    public void getInput(int index, float[] dest, int offset) {
+        checkIndex(index);
+        if(PRECISION == Precision.FLOAT) System.arraycopy(floatInputs, index * INPUT_SIZE, dest, offset, INPUT_SIZE);
+        else for (int i = 0; i < INPUT_SIZE; i++) dest[offset + i] = (float) inputs[index * INPUT_SIZE + i];
+    }
+
+    /**
+     * Copies the target data at a given index into a float array without allocating.
+     *
+     * @param index index for the requested data
+     * @param dest array receiving the TARGET_SIZE target values
+     * @param offset position in dest of the first value
+     * @throws IndexOutOfBoundsException if index is not between 0 and size() - 1
+     */
+    public void getTarget(int index, float[] dest, int offset) {
+        checkIndex(index);
+        if(PRECISION == Precision.FLOAT) System.arraycopy(floatTargets, index * TARGET_SIZE, dest, offset, TARGET_SIZE);
+        else for (int i = 0; i < TARGET_SIZE; i++) dest[offset + i] = (float) targets[index * TARGET_SIZE + i];
+    }
+
+    // the backing arrays grow ahead of size, so stale slots must not be read
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size()) throw new IndexOutOfBoundsException("Sample " + index + " of " + size());
+    }
+
+    /**
+     * Returns the precision the values are stored with.
+     *
+     * @return storage precision
+     */
+    public Precision getPrecision() {
+        return PRECISION;
+    }
+
     /**
      * Returns the size of the input data (number of input neurons)
      *
@@ -128,4 +249,3 @@ public class TrainSet {
         return TARGET_SIZE;
     }
 }
-
@@ -0,0 +1,107 @@
+package TrainSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Binary on-disk format for training data. A file is a fixed size header
+ * followed by one record per sample; all values are little-endian.
+ *
+ * <pre>
+ * header (32 bytes)
+ *   int    magic           "TSET"
+ *   int    version         1
+ *   int    input size      doubles per input
+ *   int    target size     doubles per target
+ *   long   sample count
+ *   long   reserved
+ * record (8 * (input size + target size) bytes)
+ *   double[input size]     input values
+ *   double[target size]    target values
+ * </pre>
+ *
+ * Files are written with TrainSetWriter and read with MappedTrainSet.
+ *
+ * @author JAForewit
+ * @version 1.0 02/08/2018
+ * @see TrainSetWriter
+ * @see MappedTrainSet
+ */
+public final class TrainSetFile {
+    static final int MAGIC = 0x54455354;   // "TSET" in little-endian byte order
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int COUNT_OFFSET = 16;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private TrainSetFile() {}
+
+    /**
+     * Opens a data file for reading. The file is memory-mapped, so opening is
+     * immediate and samples are paged in as they are used.
+     *
+     * @param filename the data file
+     * @return a read-only TrainSet backed by the file
+     * @throws IOException if the file can not be read or is not a data file
+     */
+    public static MappedTrainSet open(String filename) throws IOException {
+        return new MappedTrainSet(filename);
+    }
+
+    /**
+     * Writes a TrainSet to a new data file, replacing any existing file.
+     *
+     * @param filename the data file
+     * @param set the training data
+     * @throws IOException if the file can not be written
+     */
+    public static void write(String filename, TrainSet set) throws IOException {
+        double[] input = new double[set.getINPUT_SIZE()];
+        double[] target = new double[set.getTARGET_SIZE()];
+        try (TrainSetWriter writer = TrainSetWriter.create(filename, input.length, target.length)) {
+            for (int i = 0; i < set.size(); i++) {
+                set.getInput(i, input, 0);
+                set.getTarget(i, target, 0);
+                writer.append(input, target);
+            }
+        }
+    }
+
+    /**
+     * Writes data in the format captured by GamePanel (a list of {inputs, targets}
+     * pairs) to a new data file, replacing any existing file.
+     *
+     * @param filename the data file
+     * @param data the training data, data.get(i)[0] = inputs, data.get(i)[1] = targets
+     * @throws IOException if the file can not be written or data is empty
+     */
+    public static void write(String filename, ArrayList<double[][]> data) throws IOException {
+        if (data.isEmpty()) throw new IOException("Can not infer the input and target size of empty data.");
+        int inputSize = data.get(0)[0].length;
+        int targetSize = data.get(0)[1].length;
+        try (TrainSetWriter writer = TrainSetWriter.create(filename, inputSize, targetSize)) {
+            for (double[][] sample : data) writer.append(sample[0], sample[1]);
+        }
+    }
+
+    // reads and validates the header, returning {input size, target size} and the sample count
+    static long readHeader(FileChannel channel, int[] sizes) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ORDER);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0)
+                throw new IOException("The file is too short to hold a data file header.");
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) throw new IOException("The file is not a training data file.");
+        int version = header.getInt();
+        if (version != VERSION) throw new IOException("Unsupported training data file version " + version + ".");
+        sizes[0] = header.getInt();
+        sizes[1] = header.getInt();
+        long count = header.getLong();
+        if (sizes[0] <= 0 || sizes[1] <= 0 || count < 0) throw new IOException("The data file header is corrupt.");
+        return count;
+    }
+}
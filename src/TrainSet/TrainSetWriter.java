@@ -0,0 +1,136 @@
+package TrainSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Appends samples to a binary training data file. Records are collected in a
+ * direct buffer and written in large blocks; the sample count in the header is
+ * updated on every flush, so a reader always sees complete samples only.
+ *
+ * @author JAForewit
+ * @version 1.0 02/08/2018
+ * @see TrainSetFile
+ */
+public class TrainSetWriter implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger( TrainSetWriter.class.getName() );
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final int INPUT_SIZE;
+    private final int TARGET_SIZE;
+    private final ByteBuffer buffer;
+    private final DoubleBuffer doubles;
+    private final ByteBuffer count = ByteBuffer.allocate(8).order(TrainSetFile.ORDER);
+    private long size;          // samples in the file, including buffered ones
+    private long position;      // end of the flushed records
+
+    private TrainSetWriter(FileChannel channel, int inputSize, int targetSize, long size) {
+        this.channel = channel;
+        this.INPUT_SIZE = inputSize;
+        this.TARGET_SIZE = targetSize;
+        this.size = size;
+        this.position = TrainSetFile.HEADER_BYTES + size * 8 * (inputSize + targetSize);
+        int recordBytes = 8 * (inputSize + targetSize);
+        buffer = ByteBuffer.allocateDirect(Math.max(1, BUFFER_BYTES / recordBytes) * recordBytes)
+                .order(TrainSetFile.ORDER);
+        doubles = buffer.asDoubleBuffer();
+    }
+
+    /**
+     * Creates a new, empty data file, replacing any existing file.
+     *
+     * @param filename the data file
+     * @param inputSize number of input values per sample
+     * @param targetSize number of target values per sample
+     * @return a writer appending to the file
+     * @throws IOException if the file can not be created
+     */
+    public static TrainSetWriter create(String filename, int inputSize, int targetSize) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(TrainSetFile.HEADER_BYTES).order(TrainSetFile.ORDER);
+        header.putInt(TrainSetFile.MAGIC).putInt(TrainSetFile.VERSION).putInt(inputSize).putInt(targetSize)
+                .putLong(0).putLong(0).flip();
+        while (header.hasRemaining()) channel.write(header, header.position());
+        return new TrainSetWriter(channel, inputSize, targetSize, 0);
+    }
+
+    /**
+     * Opens a data file for appending, creating it if it does not exist.
+     *
+     * @param filename the data file
+     * @param inputSize number of input values per sample
+     * @param targetSize number of target values per sample
+     * @return a writer appending to the file
+     * @throws IOException if the file can not be opened or holds samples of another size
+     */
+    public static TrainSetWriter append(String filename, int inputSize, int targetSize) throws IOException {
+        if (!Paths.get(filename).toFile().exists()) return create(filename, inputSize, targetSize);
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int[] sizes = new int[2];
+            long size = TrainSetFile.readHeader(channel, sizes);
+            if (sizes[0] != inputSize || sizes[1] != targetSize)
+                throw new IOException("The data file holds inputs[" + sizes[0] + "], targets[" + sizes[1] + "].");
+            return new TrainSetWriter(channel, inputSize, targetSize, size);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a sample to the file.
+     *
+     * @param inputs input neuron values
+     * @param targets target output neuron values
+     * @throws IOException if the buffered samples can not be written
+     */
+    public void append(double[] inputs, double[] targets) throws IOException {
+        if (inputs.length != INPUT_SIZE || targets.length != TARGET_SIZE) {
+            LOGGER.log(Level.SEVERE, "Passed an invalid input and target size to append()."
+                    + " Expected inputs[" + INPUT_SIZE + "], targets[" + TARGET_SIZE + "].");
+            return;
+        }
+        if (doubles.remaining() < INPUT_SIZE + TARGET_SIZE) flush();
+        doubles.put(inputs).put(targets);
+        size++;
+    }
+
+    /**
+     * Writes the buffered samples and updates the sample count in the header.
+     *
+     * @throws IOException if the file can not be written
+     */
+    public void flush() throws IOException {
+        buffer.position(0).limit(doubles.position() * 8);
+        while (buffer.hasRemaining()) position += channel.write(buffer, position);
+        buffer.clear();
+        doubles.clear();
+
+        count.clear();
+        count.putLong(0, size);
+        while (count.hasRemaining()) channel.write(count, TrainSetFile.COUNT_OFFSET + count.position());
+    }
+
+    /**
+     * Returns the number of samples in the file, including buffered ones.
+     *
+     * @return number of samples
+     */
+    public long size() { return size; }
+
+    @Override
+    public void close() throws IOException {
+        try { flush(); }
+        finally { channel.close(); }
+    }
+}